@@ -2,6 +2,7 @@ package com.jjoe64.graphview;
 
 import android.content.Context;
 import android.graphics.Canvas;
+import android.graphics.Path;
 import android.util.AttributeSet;
 
 import com.jjoe64.graphview.GraphViewSeries.GraphViewSeriesStyle;
@@ -11,35 +12,204 @@ import com.jjoe64.graphview.GraphViewSeries.GraphViewSeriesStyle;
  * @author Muhammad Shahab Hameed
  */
 public class BarGraphView extends GraphView {
+	/**
+	 * how the values of the data in one bar are combined, see {@link BarGraphView#setAggregation(Aggregation)}
+	 */
+	public enum Aggregation {
+		MAX, SUM, LAST
+	}
+
+	// rects of the same color are collected in one path
+	private static final int MAX_BATCHES = 16;
+
+	private Aggregation aggregation;
+	private float minBarWidth = 1;
+	private final int[] batchColors = new int[MAX_BATCHES];
+	private final Path[] batchPaths = new Path[MAX_BATCHES];
+	private int batches;
+	// passed to the value dependent color, reused for every bar
+
 	public BarGraphView(Context context, AttributeSet attrs) {
 		super(context, attrs);
 	}
-	
+
 	public BarGraphView(Context context, String title) {
 		super(context, title);
 	}
 
-	@Override
-	public void drawSeries(Canvas canvas, GraphViewData[] values, float graphwidth, float graphheight,
+	/**
+	 * adds a rect to the batch of its color. if there are too many colors, the batches are drawn.
+	 */
+	private void addRect(Canvas canvas, int color, float left, float top, float right, float bottom) {
+		int i = 0;
+		while (i < batches && batchColors[i] != color) {
+			i++;
+		}
+		if (i == batches) {
+			if (batches == MAX_BATCHES) {
+				drawBatches(canvas);
+				i = 0;
+			}
+			if (batchPaths[i] == null) {
+				batchPaths[i] = new Path();
+			}
+			batchColors[i] = color;
+			batches++;
+		}
+		batchPaths[i].addRect(left, top, right, bottom, Path.Direction.CW);
+	}
+
+	private void drawBatches(Canvas canvas) {
+		for (int i = 0; i < batches; i++) {
+			paint.setColor(batchColors[i]);
+			canvas.drawPath(batchPaths[i], paint);
+			batchPaths[i].rewind();
+		}
+		batches = 0;
+	}
+
+	/**
+	 * draws the visible data binned by x: every bar covers at least minBarWidth pixels,
+	 * the values of the data in one bar are combined with the aggregation.
+	 */
+	private void drawBins(Canvas canvas, GraphViewSeries series, int start, int end, float graphwidth, float graphheight,
 			float border, double minX, double minY, double diffX, double diffY,
 			float horstart, GraphViewSeriesStyle style) {
-		float colwidth = (graphwidth - (2 * border)) / values.length;
+		int count = end - start;
+		if (count == 0) {
+			return;
+		}
+		float binWidth = Math.max(minBarWidth, graphwidth / count);
+		int numBins = Math.max((int) (graphwidth / binWidth), 1);
+		double binsPerX = graphwidth / diffX / binWidth;
+		double scaleY = graphheight / diffY;
+		float gap = binWidth > 2 ? 1 : 0;
+
+		int bin = -1;
+		double value = 0;
+		double lastX = 0;
+		for (int i = start; i < end; i++) {
+			double x = series.getX(i);
+			if (x < minX || x > minX + diffX) {
+				// not visible
+				continue;
+			}
+			int b = Math.min((int) ((x - minX) * binsPerX), numBins - 1);
+			double y = series.getY(i);
+			if (b != bin) {
+				if (bin >= 0) {
+					drawBar(canvas, bin, binWidth, gap, lastX, value, minY, scaleY, graphheight, border, horstart, style);
+				}
+				bin = b;
+				value = y;
+			} else {
+				switch (aggregation) {
+				case MAX:
+					value = Math.max(value, y);
+					break;
+				case SUM:
+					value += y;
+					break;
+				default:
+					value = y;
+				}
+			}
+			lastX = x;
+		}
+		if (bin >= 0) {
+			drawBar(canvas, bin, binWidth, gap, lastX, value, minY, scaleY, graphheight, border, horstart, style);
+		}
+	}
+
+	private void drawBar(Canvas canvas, int bin, float binWidth, float gap, double valueX, double valueY, double minY, double scaleY,
+			float graphheight, float border, float horstart, GraphViewSeriesStyle style) {
+		float left = horstart + bin * binWidth;
+		float top = (float) (border + graphheight - (valueY - minY) * scaleY);
+		int color = style.color;
+		// hook for value dependent color
+		if (style.getValueDependentColor() != null) {
+			color = getValueDependentColor(style.getValueDependentColor(), valueX, valueY);
+		}
+		addRect(canvas, color, left, top, left + binWidth - gap, graphheight + border - 1);
+	}
+
+	/**
+	 * a {@link XYValueDependentColor} gets the values directly, others get a new GraphViewData per bar
+	 */
+	private static int getValueDependentColor(ValueDependentColor valueDependentColor, double valueX, double valueY) {
+		if (valueDependentColor instanceof XYValueDependentColor) {
+			return ((XYValueDependentColor) valueDependentColor).get(valueX, valueY);
+		}
+		return valueDependentColor.get(new GraphViewData(valueX, valueY));
+	}
 
+	@Override
+	public void drawSeries(Canvas canvas, GraphViewSeries series, int start, int end, float graphwidth, float graphheight,
+			float border, double minX, double minY, double diffX, double diffY,
+			float horstart, GraphViewSeriesStyle style) {
 		paint.setStrokeWidth(style.thickness);
-		paint.setColor(style.color);
 
-		// draw data
-		for (int i = 0; i < values.length; i++) {
-			float valY = (float) (values[i].valueY - minY);
+		if (aggregation != null) {
+			drawBins(canvas, series, start, end, graphwidth, graphheight, border, minX, minY, diffX, diffY, horstart, style);
+			drawBatches(canvas);
+			return;
+		}
+
+		int count = end - start;
+		if (count == 0) {
+			return;
+		}
+		float colwidth = (graphwidth - (2 * border)) / count;
+
+		// draw the visible data
+		for (int i = start; i < end; i++) {
+			int col = i - start;
+			float valY = (float) (series.getY(i) - minY);
 			float ratY = (float) (valY / diffY);
 			float y = graphheight * ratY;
 
+			int color = style.color;
 			// hook for value dependent color
 			if (style.getValueDependentColor() != null) {
-				paint.setColor(style.getValueDependentColor().get(values[i]));
+				color = getValueDependentColor(style.getValueDependentColor(), series.getX(i), series.getY(i));
 			}
 
-			canvas.drawRect((i * colwidth) + horstart, (border - y) + graphheight, ((i * colwidth) + horstart) + (colwidth - 1), graphheight + border - 1, paint);
+			addRect(canvas, color, (col * colwidth) + horstart, (border - y) + graphheight, ((col * colwidth) + horstart) + (colwidth - 1), graphheight + border - 1);
 		}
+		drawBatches(canvas);
+	}
+
+	/**
+	 * bars are binned relative to the viewport, they cannot be drawn partially
+	 */
+	@Override
+	protected boolean isScrollShiftSupported() {
+		return false;
+	}
+
+	public Aggregation getAggregation() {
+		return aggregation;
+	}
+
+	/**
+	 * if set, the bars are placed by their x values and only the visible data is drawn.
+	 * The data is binned into bars of at least {@link #setMinBarWidth(float)} pixels,
+	 * the values of the data in one bar are combined with the aggregation.
+	 * Note: with SUM, bars may exceed the y range and are cut at the plot area, use {@link #setManualYAxisBounds(double, double)}.
+	 * @param aggregation if null, one bar per visible data is drawn, evenly spaced over the whole width (default)
+	 */
+	public void setAggregation(Aggregation aggregation) {
+		this.aggregation = aggregation;
+	}
+
+	public float getMinBarWidth() {
+		return minBarWidth;
+	}
+
+	/**
+	 * @param minBarWidth minimal width of a bar in pixels, used with {@link #setAggregation(Aggregation)}
+	 */
+	public void setMinBarWidth(float minBarWidth) {
+		this.minBarWidth = Math.max(minBarWidth, 1);
 	}
 }
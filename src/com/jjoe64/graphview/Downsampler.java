@@ -0,0 +1,228 @@
+package com.jjoe64.graphview;
+
+/**
+ * reduces the number of data of a series that have to be drawn.
+ * The result is a list of data indices, stored in a buffer that is reused between calls.
+ */
+final class Downsampler {
+	private int[] indices = new int[0];
+
+	/**
+	 * @return the indices selected by the last call
+	 */
+	int[] getIndices() {
+		return indices;
+	}
+
+	/**
+	 * Largest-Triangle-Three-Buckets downsampling.
+	 * The data is divided into (threshold - 2) buckets, from every bucket the data that forms
+	 * the largest triangle with the previously selected data and the average of the next bucket is selected.
+	 * The first and the last data are always selected.
+	 * @param series
+	 * @param start index of the first data
+	 * @param end index after the last data
+	 * @param threshold number of data to select, >= 3
+	 * @return number of selected indices, see {@link #getIndices()}
+	 */
+	int lttb(GraphViewSeries series, int start, int end, int threshold) {
+		int n = end - start;
+		if (threshold >= n || threshold < 3) {
+			ensureCapacity(n);
+			for (int i = 0; i < n; i++) {
+				indices[i] = start + i;
+			}
+			return n;
+		}
+		ensureCapacity(threshold);
+
+		double every = (double) (n - 2) / (threshold - 2);
+		int count = 0;
+		int a = start;
+		indices[count++] = a;
+		for (int i = 0; i < threshold - 2; i++) {
+			// average of the next bucket
+			int avgStart = start + (int) ((i + 1) * every) + 1;
+			int avgEnd = Math.min(start + (int) ((i + 2) * every) + 1, end);
+			double avgX = 0;
+			double avgY = 0;
+			for (int j = avgStart; j < avgEnd; j++) {
+				avgX += series.getX(j);
+				avgY += series.getY(j);
+			}
+			int avgLength = avgEnd - avgStart;
+			avgX /= avgLength;
+			avgY /= avgLength;
+
+			// the data of the current bucket with the largest triangle
+			int rangeStart = start + (int) (i * every) + 1;
+			int rangeEnd = start + (int) ((i + 1) * every) + 1;
+			double ax = series.getX(a);
+			double ay = series.getY(a);
+			double maxArea = -1;
+			int next = rangeStart;
+			for (int j = rangeStart; j < rangeEnd; j++) {
+				// twice the triangle area, the factor doesn't matter for the comparison
+				double area = Math.abs((ax - avgX) * (series.getY(j) - ay) - (ax - series.getX(j)) * (avgY - ay));
+				if (area > maxArea) {
+					maxArea = area;
+					next = j;
+				}
+			}
+			indices[count++] = next;
+			a = next;
+		}
+		indices[count++] = end - 1;
+		return count;
+	}
+
+	/**
+	 * M4 aggregation: for every pixel column the first, the last, the minimal and the maximal data are selected.
+	 * A line through the selected data looks exactly like a line through all data,
+	 * but there are at most 4 data per pixel column.
+	 * @param series
+	 * @param start index of the first data
+	 * @param end index after the last data
+	 * @param minX x value at pixel 0
+	 * @param diffX x range of the graph
+	 * @param graphwidth width in pixels
+	 * @return number of selected indices, see {@link #getIndices()}
+	 */
+	int m4(GraphViewSeries series, int start, int end, double minX, double diffX, float graphwidth) {
+		if (start >= end) {
+			return 0;
+		}
+		double scale = graphwidth / diffX;
+		int firstColumn = (int) Math.floor((series.getX(start) - minX) * scale);
+		int lastColumn = (int) Math.floor((series.getX(end - 1) - minX) * scale);
+		ensureCapacity((int) Math.min(end - start, 4L * ((long) lastColumn - firstColumn + 1)));
+
+		int count = 0;
+		int column = firstColumn;
+		int first = start, last = start, min = start, max = start;
+		double minY = series.getY(start);
+		double maxY = minY;
+		for (int i = start + 1; i < end; i++) {
+			int c = (int) Math.floor((series.getX(i) - minX) * scale);
+			double y = series.getY(i);
+			if (c != column) {
+				count = flushColumn(count, first, min, max, last);
+				column = c;
+				first = last = min = max = i;
+				minY = maxY = y;
+			} else {
+				last = i;
+				if (y < minY) {
+					minY = y;
+					min = i;
+				}
+				if (y > maxY) {
+					maxY = y;
+					max = i;
+				}
+			}
+		}
+		return flushColumn(count, first, min, max, last);
+	}
+
+	/**
+	 * selects data using the mipmap of the series (see {@link GraphViewSeries#setMultiResolution(boolean)}).
+	 * The coarsest mipmap level with at least one bucket per pixel is used, for every bucket
+	 * the first, the last, the minimal and the maximal data are selected like in {@link #m4(GraphViewSeries, int, int, double, double, float)}.
+	 * The costs are proportional to the width and not to the number of data.
+	 * @param series
+	 * @param start index of the first data
+	 * @param end index after the last data
+	 * @param graphwidth width in pixels
+	 * @return number of selected indices, see {@link #getIndices()}
+	 */
+	int pyramid(GraphViewSeries series, int start, int end, float graphwidth) {
+		RangeMinMax range = series.getRangeY();
+		int n = end - start;
+		int level = 0;
+		while (level + 1 < range.getLevels() && (n >> (RangeMinMax.BLOCK_SHIFT + level + 1)) >= graphwidth) {
+			level++;
+		}
+		// complete buckets + incomplete buckets at the edges of the two ring buffer segments
+		ensureCapacity(4 * ((n >> (RangeMinMax.BLOCK_SHIFT + level)) + 4));
+
+		int capacity = series.getValuesY().length;
+		int from = series.readIndex(start);
+		int to = from + n;
+		if (to <= capacity) {
+			return selectBuckets(series, range, level, from, to, 0);
+		}
+		// wrapped
+		int count = selectBuckets(series, range, level, from, capacity, 0);
+		return selectBuckets(series, range, level, 0, to - capacity, count);
+	}
+
+	/**
+	 * selects data of the physical array slots [from, to), using the buckets of a mipmap level
+	 */
+	private int selectBuckets(GraphViewSeries series, RangeMinMax range, int level, int from, int to, int count) {
+		int shift = RangeMinMax.BLOCK_SHIFT + level;
+		int firstBucket = (from + (1 << shift) - 1) >> shift;
+		int lastBucket = to >> shift;
+		if (firstBucket >= lastBucket) {
+			return scanSlots(series, from, to, count);
+		}
+		// incomplete bucket at the start
+		count = scanSlots(series, from, firstBucket << shift, count);
+		for (int b = firstBucket; b < lastBucket; b++) {
+			count = flushColumn(count
+					, series.logicalIndex(b << shift)
+					, series.logicalIndex(range.getMinSlot(level, b))
+					, series.logicalIndex(range.getMaxSlot(level, b))
+					, series.logicalIndex(((b + 1) << shift) - 1));
+		}
+		// incomplete bucket at the end
+		return scanSlots(series, lastBucket << shift, to, count);
+	}
+
+	/**
+	 * selects first, last, minimal and maximal data of the physical array slots [from, to)
+	 */
+	private int scanSlots(GraphViewSeries series, int from, int to, int count) {
+		if (from >= to) {
+			return count;
+		}
+		double[] valuesY = series.getValuesY();
+		int min = from;
+		int max = from;
+		for (int p = from + 1; p < to; p++) {
+			if (valuesY[p] < valuesY[min]) min = p;
+			if (valuesY[p] > valuesY[max]) max = p;
+		}
+		return flushColumn(count
+				, series.logicalIndex(from)
+				, series.logicalIndex(min)
+				, series.logicalIndex(max)
+				, series.logicalIndex(to - 1));
+	}
+
+	/**
+	 * adds the selected data of one pixel column in index order, without duplicates
+	 */
+	private int flushColumn(int count, int first, int min, int max, int last) {
+		indices[count++] = first;
+		int lower = Math.min(min, max);
+		int upper = Math.max(min, max);
+		if (lower != first) {
+			indices[count++] = lower;
+		}
+		if (upper != lower && upper != first) {
+			indices[count++] = upper;
+		}
+		if (last != upper && last != first) {
+			indices[count++] = last;
+		}
+		return count;
+	}
+
+	private void ensureCapacity(int n) {
+		if (indices.length < n) {
+			indices = new int[Math.max(n, indices.length + (indices.length >> 1))];
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package com.jjoe64.graphview;
+
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+
+/**
+ * formats numbers with a maximal number of fraction digits into a char array,
+ * without allocating. Trailing zeros of the fraction are omitted and the integer part is grouped,
+ * like {@link NumberFormat#getNumberInstance()} does.
+ * The separators of the default locale are used.
+ */
+final class FastNumberFormat {
+	/**
+	 * enough for every number that is formatted without fallback
+	 */
+	static final int MAX_LENGTH = 48;
+	static final int MAX_FRACTION_DIGITS = 9;
+
+	private static final long[] POW10 = {
+		1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L
+	};
+	// larger values are formatted with NumberFormat, above 2^52 the fraction of a double is no longer exact
+	private static final double MAX_FAST_VALUE = 4503599627370496d;
+	// 2^27 + 1, splits a double into two halves of 26 bits
+	private static final double SPLITTER = 134217729d;
+
+	private final char decimalSeparator;
+	private final char groupingSeparator;
+	// scratch buffer for the digits of the integer part, in reverse order
+	private final char[] digits = new char[32];
+
+	FastNumberFormat() {
+		DecimalFormatSymbols symbols = new DecimalFormatSymbols();
+		decimalSeparator = symbols.getDecimalSeparator();
+		groupingSeparator = symbols.getGroupingSeparator();
+	}
+
+	/**
+	 * @param value
+	 * @param fractionDigits maximal number of fraction digits, 0..MAX_FRACTION_DIGITS
+	 * @param buffer destination, at least MAX_LENGTH chars
+	 * @return number of chars written
+	 */
+	int format(double value, int fractionDigits, char[] buffer) {
+		if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) * POW10[fractionDigits] >= MAX_FAST_VALUE) {
+			// rare, allocation is acceptable
+			NumberFormat nf = NumberFormat.getNumberInstance();
+			nf.setMaximumFractionDigits(fractionDigits);
+			String s = nf.format(value);
+			int length = Math.min(s.length(), buffer.length);
+			s.getChars(0, length, buffer, 0);
+			return length;
+		}
+
+		long scaled = roundScaled(Math.abs(value), POW10[fractionDigits]);
+		long integerPart = scaled / POW10[fractionDigits];
+		long fraction = scaled % POW10[fractionDigits];
+		// omit trailing zeros
+		while (fractionDigits > 0 && fraction % 10 == 0) {
+			fraction /= 10;
+			fractionDigits--;
+		}
+
+		int pos = 0;
+		if (value < 0 && scaled != 0) {
+			buffer[pos++] = '-';
+		}
+
+		// integer part with grouping
+		int n = 0;
+		do {
+			if (n > 0 && n % 4 == 3) {
+				digits[n++] = groupingSeparator;
+			}
+			digits[n++] = (char) ('0' + integerPart % 10);
+			integerPart /= 10;
+		} while (integerPart > 0);
+		while (n > 0) {
+			buffer[pos++] = digits[--n];
+		}
+
+		// fraction with leading zeros
+		if (fractionDigits > 0) {
+			buffer[pos++] = decimalSeparator;
+			for (int i = fractionDigits - 1; i >= 0; i--) {
+				buffer[pos + i] = (char) ('0' + fraction % 10);
+				fraction /= 10;
+			}
+			pos += fractionDigits;
+		}
+		return pos;
+	}
+
+	/**
+	 * rounds value*scale half even, like NumberFormat. The decision is made on the exact
+	 * product, the rounding error of the double multiplication is recovered with Dekker's algorithm,
+	 * otherwise 0.0005 or 2.8025 (slightly above the tie as doubles) would be rounded down.
+	 * @param value >= 0, value*scale < MAX_FAST_VALUE
+	 * @param scale power of ten
+	 */
+	private static long roundScaled(double value, long scale) {
+		double product = value * scale;
+		double error = productError(value, scale, product);
+		double floor = Math.floor(product);
+		double fraction = product - floor; // exact
+		long result = (long) floor;
+		if (fraction > 0.5 || (fraction == 0.5 && (error > 0 || (error == 0 && (result & 1) != 0)))) {
+			result++;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the exact value of a*b - product, where product is the rounded a*b
+	 */
+	private static double productError(double a, double b, double product) {
+		double t = SPLITTER * a;
+		double aHigh = t - (t - a);
+		double aLow = a - aHigh;
+		t = SPLITTER * b;
+		double bHigh = t - (t - b);
+		double bLow = b - bHigh;
+		return ((aHigh * bHigh - product) + aHigh * bLow + aLow * bHigh) + aLow * bLow;
+	}
+}
@@ -5,6 +5,7 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Paint.Align;
+import android.graphics.Typeface;
 import android.util.AttributeSet;
 import android.text.TextPaint;
 import android.text.TextUtils;
@@ -52,6 +53,19 @@ abstract public class FixLabelsGraphView extends GraphView {
     private double minY;
     private double maxY;
 
+    // text measurement cache of horlabels, same index
+    // labels are measured again if the paint's text size or typeface changed
+    private String[] measuredLabels;
+    private float[] labelWidths;
+    // right aligned label that fits into the available width
+    private String[] fittedLabels;
+    private float[] fittedAvailableWidths;
+    private float measuredTextSize;
+    private float measuredTextScaleX;
+    private Typeface measuredTypeface;
+    // first visible label of the last frame
+    private int firstVisibleLabel;
+
 
 
     public FixLabelsGraphView(Context context, AttributeSet attrs) {
@@ -83,10 +97,11 @@ abstract public class FixLabelsGraphView extends GraphView {
     @Override
     protected void drawHorizontalLabelsLines(Canvas canvas, float graphwidth,
             float graphheight, float border, float horstart) {
-        double maxY = getMaxY();
-        double minY = getMinY();
-        double maxX = getMaxX(false);
-        double minX = getMinX(false);
+        GraphViewBounds bounds = getBounds();
+        double maxY = bounds.getMaxY();
+        double minY = bounds.getMinY();
+        double maxX = bounds.getMaxX();
+        double minX = bounds.getMinX();
         setDrawParams(graphwidth, graphheight, border, horstart,
                 minX, maxX, minY, maxY);
         if (horlabels == null) {
@@ -103,12 +118,10 @@ abstract public class FixLabelsGraphView extends GraphView {
         double min = minX;
         double max = maxX;
         double diff = max - min;
-        for (int i = 0; i < horlabels.length; i++) {
+        for (int i = findFirstVisibleLabel(min); i < horlabels.length; i++) {
             double value = horlabels[i].value;
             if (value > max)
                 break;
-            else if (value < min)
-                continue;
             paint.setColor(graphViewStyle.getGridColor());
             float x = (float) ((value - min)/diff) * graphwidth + horstart;
             canvas.drawLine(x, height - border, x, border, paint);
@@ -131,6 +144,65 @@ abstract public class FixLabelsGraphView extends GraphView {
                 border, horstart, minX, maxX, minY, maxY);
     }
 
+    // returns the index of the first label with value >= min
+    // the labels are ordered by value. while scrolling the first visible label
+    // moves only a few labels, so the label of the last frame is checked first
+    private int findFirstVisibleLabel(double min) {
+        int n = horlabels.length;
+        int i = Math.min(firstVisibleLabel, n);
+        for (int steps = 0; steps < 4; steps++) {
+            if (i < n && horlabels[i].value < min) {
+                i++;
+            } else if (i > 0 && horlabels[i - 1].value >= min) {
+                i--;
+            } else {
+                firstVisibleLabel = i;
+                return i;
+            }
+        }
+        // binary search
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (horlabels[mid].value < min)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        firstVisibleLabel = lo;
+        return lo;
+    }
+
+    // invalidates the text measurement cache, if the labels or the paint changed
+    private void validateMeasureCache() {
+        int n = horlabels == null ? 0 : horlabels.length;
+        if (labelWidths == null || labelWidths.length != n
+                || paint.getTextSize() != measuredTextSize
+                || paint.getTextScaleX() != measuredTextScaleX
+                || paint.getTypeface() != measuredTypeface) {
+            measuredLabels = new String[n];
+            labelWidths = new float[n];
+            fittedLabels = new String[n];
+            fittedAvailableWidths = new float[n];
+            measuredTextSize = paint.getTextSize();
+            measuredTextScaleX = paint.getTextScaleX();
+            measuredTypeface = paint.getTypeface();
+        }
+    }
+
+    // returns the cached width of label i
+    private float getLabelWidth(int i) {
+        String label = horlabels[i].label;
+        // FixLabel is mutable, so the label is checked, too
+        if (measuredLabels[i] != label) {
+            labelWidths[i] = paint.measureText(label);
+            measuredLabels[i] = label;
+            fittedLabels[i] = null;
+        }
+        return labelWidths[i];
+    }
+
     // if right align, label may overwrite the previous label
     // returns part of label that fits
     protected String getRightAlignedLabel(int i, double diffX, float graphwidth) {
@@ -138,33 +210,44 @@ abstract public class FixLabelsGraphView extends GraphView {
         String label = horlabels[i].label;
         if (!(paint instanceof TextPaint) || (i == 0))
             return label;
+        validateMeasureCache();
         // check if overwrite
-        float textwidth = paint.measureText(label);
-        float prevTextwidth = paint.measureText(horlabels[i - 1].label);
+        float textwidth = getLabelWidth(i);
+        float prevTextwidth = getLabelWidth(i - 1);
         float labelwidth = (float) ((horlabels[i].value - horlabels[i - 1].value)/diffX)
                 * graphwidth; 
         if (textwidth + prevTextwidth > labelwidth) {
-            // use custom ellipsis
-            final String ellipsis = "\u2025";
-            CharSequence etxt = TextUtils.ellipsize(label, (TextPaint) paint,
-                    labelwidth - prevTextwidth, TextUtils.TruncateAt.START);
-            // replace default ellipsis ... with custom
-            if ((etxt.length() < label.length()) && (etxt.length() > 0)) {
-                // check can squeeze in 1 more char?
-                String stxt = ellipsis + label.substring(label.length() - etxt.length());
-                textwidth = paint.measureText(stxt);
-                if (textwidth + prevTextwidth <= labelwidth)
-                   return stxt;
-                // Note: subSequence throws StringIndexOutOfBoundsException 
-                //  in new nexus 7 with Chinese 
-                // return ellipsis + etxt.subSequence(1, etxt.length());
-                return ellipsis + etxt.toString().substring(1);
+            float availableWidth = labelwidth - prevTextwidth;
+            if (fittedLabels[i] == null || fittedAvailableWidths[i] != availableWidth) {
+                fittedLabels[i] = fitRightAlignedLabel(label, availableWidth);
+                fittedAvailableWidths[i] = availableWidth;
             }
-            return etxt.toString();
+            return fittedLabels[i];
         }
         return label;
     }
 
+    // returns part of label that fits into availableWidth, with ellipsis
+    private String fitRightAlignedLabel(String label, float availableWidth) {
+        // use custom ellipsis
+        final String ellipsis = "\u2025";
+        CharSequence etxt = TextUtils.ellipsize(label, (TextPaint) paint,
+                availableWidth, TextUtils.TruncateAt.START);
+        // replace default ellipsis ... with custom
+        if ((etxt.length() < label.length()) && (etxt.length() > 0)) {
+            // check can squeeze in 1 more char?
+            String stxt = ellipsis + label.substring(label.length() - etxt.length());
+            float textwidth = paint.measureText(stxt);
+            if (textwidth <= availableWidth)
+               return stxt;
+            // Note: subSequence throws StringIndexOutOfBoundsException 
+            //  in new nexus 7 with Chinese 
+            // return ellipsis + etxt.subSequence(1, etxt.length());
+            return ellipsis + etxt.toString().substring(1);
+        }
+        return etxt.toString();
+    }
+
     // using this to call IDrawGraph.drawAfterSeries
     @Override
     protected void drawLegend(Canvas canvas, float height, float width) {
@@ -225,8 +308,12 @@ abstract public class FixLabelsGraphView extends GraphView {
     * set's static horizontal labels (from left to right)
     * @param horlabels 
     */ 
-    public void setHorizontalLabels(FixLabel[] horlabels) { 
+    synchronized public void setHorizontalLabels(FixLabel[] horlabels) { 
         this.horlabels = horlabels; 
+        labelWidths = null;
+        firstVisibleLabel = 0;
+        invalidateBounds();
+        invalidateStaticLayer();
     }
 
     /**
@@ -240,8 +327,9 @@ abstract public class FixLabelsGraphView extends GraphView {
      * set's client IDrawGraph
      * @param drawGraph
      */
-    public void setDrawGraph(IDrawGraph drawGraph) {
+    synchronized public void setDrawGraph(IDrawGraph drawGraph) {
         iDraw = drawGraph;
+        invalidateStaticLayer();
     }
 
     /**
@@ -251,4 +339,13 @@ abstract public class FixLabelsGraphView extends GraphView {
         return iDraw;
     }
 
+    /**
+     * IDrawGraph can draw outside the plot area, then the content view
+     * is always invalidated completely
+     */
+    @Override
+    protected boolean isPlotInvalidationSupported() {
+        return iDraw == null;
+    }
+
 }
@@ -0,0 +1,130 @@
+package com.jjoe64.graphview;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.view.MotionEvent;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+/**
+ * content of a GraphView that is drawn by a dedicated render thread, see {@link GraphView#setRenderOnSurface(boolean)}.
+ * The surface is double buffered by the system: every frame is drawn completely
+ * into the back buffer and posted at once.
+ * Frames are requested with {@link #requestRender()}, several requests before the next frame are combined.
+ */
+class GraphSurfaceView extends SurfaceView implements SurfaceHolder.Callback {
+	private final GraphView graphView;
+	private RenderThread renderThread;
+
+	private class RenderThread extends Thread {
+		private final SurfaceHolder holder;
+		private boolean running = true;
+		private boolean dirty = true;
+		private int width;
+		private int height;
+
+		RenderThread(SurfaceHolder holder) {
+			super("GraphView render");
+			this.holder = holder;
+		}
+
+		synchronized void requestRender() {
+			dirty = true;
+			notify();
+		}
+
+		synchronized void setSize(int width, int height) {
+			this.width = width;
+			this.height = height;
+			dirty = true;
+			notify();
+		}
+
+		synchronized void quit() {
+			running = false;
+			notify();
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				int width;
+				int height;
+				synchronized (this) {
+					while (running && (!dirty || this.width <= 0 || this.height <= 0)) {
+						try {
+							wait();
+						} catch (InterruptedException e) {
+							running = false;
+						}
+					}
+					if (!running) {
+						return;
+					}
+					dirty = false;
+					width = this.width;
+					height = this.height;
+				}
+				Canvas canvas = holder.lockCanvas();
+				if (canvas == null) {
+					continue;
+				}
+				try {
+					canvas.drawColor(graphView.getSurfaceBackgroundColor());
+					graphView.drawSurface(canvas, width, height);
+				} finally {
+					holder.unlockCanvasAndPost(canvas);
+				}
+			}
+		}
+	}
+
+	GraphSurfaceView(Context context, GraphView graphView) {
+		super(context);
+		this.graphView = graphView;
+		getHolder().addCallback(this);
+	}
+
+	/**
+	 * the render thread will draw a new frame
+	 */
+	void requestRender() {
+		RenderThread thread = renderThread;
+		if (thread != null) {
+			thread.requestRender();
+		}
+	}
+
+	@Override
+	public void surfaceCreated(SurfaceHolder holder) {
+		renderThread = new RenderThread(holder);
+		renderThread.start();
+	}
+
+	@Override
+	public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+		renderThread.setSize(width, height);
+	}
+
+	@Override
+	public void surfaceDestroyed(SurfaceHolder holder) {
+		// the surface must not be used after returning
+		RenderThread thread = renderThread;
+		renderThread = null;
+		thread.quit();
+		boolean retry = true;
+		while (retry) {
+			try {
+				thread.join();
+				retry = false;
+			} catch (InterruptedException e) {
+				// try again
+			}
+		}
+	}
+
+	@Override
+	public boolean onTouchEvent(MotionEvent event) {
+		return graphView.onSurfaceTouchEvent(event);
+	}
+}
@@ -1,8 +1,10 @@
 package com.jjoe64.graphview;
 
-import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import android.content.Context;
 import android.graphics.Canvas;
@@ -10,17 +12,19 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Paint.Align;
 import android.graphics.RectF;
+import android.os.Looper;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
 import android.widget.LinearLayout;
 
 import com.jjoe64.graphview.GraphViewSeries.GraphViewSeriesStyle;
+import com.jjoe64.graphview.compatible.FrameScheduler;
 import com.jjoe64.graphview.compatible.ScaleGestureDetector;
 
 /**
  * GraphView is a Android View for creating zoomable and scrollable graphs.
- * This is the abstract base class for all graphs. Extend this class and implement {@link #drawSeries(Canvas, GraphViewData[], float, float, float, double, double, double, double, float)} to display a custom graph.
+ * This is the abstract base class for all graphs. Extend this class and override {@link #drawSeries(Canvas, GraphViewSeries, int, int, float, float, float, double, double, double, double, float, GraphViewSeriesStyle)} to display a custom graph.
  * Use {@link LineGraphView} for creating a line chart.
  *
  * @author jjoe64 - jonas gehring - http://www.jjoe64.com
@@ -39,6 +43,10 @@ abstract public class GraphView extends LinearLayout {
 	private class GraphViewContentView extends View {
 		private float lastTouchEventX;
 		private float graphwidth;
+		// series of the frame and their visible data, drawn without the lock
+		private final List<GraphViewSeries> frameSeries = new ArrayList<GraphViewSeries>();
+		private int[] frameStart = new int[0];
+		private int[] frameEnd = new int[0];
 
 		/**
 		 * @param context
@@ -53,34 +61,150 @@ abstract public class GraphView extends LinearLayout {
 		 */
 		@Override
 		protected void onDraw(Canvas canvas) {
+			drawContent(canvas, getWidth(), getHeight());
+		}
 
-            paint.setAntiAlias(true);
-
-			// normal
-			paint.setStrokeWidth(0);
-
+		/**
+		 * draws grid, labels, title, series and legend.
+		 * used by onDraw and by the render thread of {@link GraphView#setRenderOnSurface(boolean)}.
+		 * The view state is changed by other threads while holding the lock: the frame is prepared
+		 * and finished with the lock, the series are drawn without it from the state of the frame.
+		 */
+		void drawContent(Canvas canvas, int viewWidth, int viewHeight) {
 			float border = GraphViewConfig.BORDER;
 			float horstart = 0;
-			float height = getHeight();
-			float width = getWidth() - 1;
-			double maxY = getMaxY();
-			double minY = getMinY();
-			double maxX = getMaxX(false);
-			double minX = getMinX(false);
-			double diffX = maxX - minX;
+			float height = viewHeight;
+			float width = viewWidth - 1;
 			float graphheight = height - (2 * border);
-			graphwidth = width;
+			double minX;
+			double minY;
+			double diffX;
+			double diffY;
+			boolean useSeriesLayer;
+			int layerVersion;
+			int margin;
+			// what the frame shows, see contentLabelsChanged
+			double drawnMinX;
+			double drawnMaxX;
+			String[] drawnHorlabels;
+			int drawnStaticVersion;
+			GraphViewStyle drawnStyle;
+
+			synchronized (GraphView.this) {
+				drainForFrame();
+				frameSeries.clear();
+				for (int i=0; i<graphSeries.size(); i++) {
+					frameSeries.add(graphSeries.get(i));
+				}
+				// bounds, labels and series are read from the same data
+				beginRead(frameSeries);
+				int flags = applyRedraw();
+				if ((flags & DIRTY_STYLE) != 0 || (flags != 0 && verLabelsChanged())) {
+					viewVerLabels.postInvalidate();
+				}
+
+				paint.setAntiAlias(true);
+
+				// normal
+				paint.setStrokeWidth(0);
+
+				GraphViewBounds bounds = getBounds();
+				double maxY = bounds.maxY;
+				minY = bounds.minY;
+				double maxX = bounds.maxX;
+				minX = bounds.minX;
+				diffX = maxX - minX;
+				graphwidth = width;
 
-			if (verlabels == null) {
-				verlabels = generateVerlabels(graphheight);
+				if (staticLayerCache && viewWidth > 0 && viewHeight > 0) {
+					if (contentLayer.update(viewWidth, viewHeight, graphViewStyle, staticLayerVersion,
+							minX, maxX, minY, maxY, paint.getTextSize())) {
+						drawStatic(contentLayer.getCanvas(), width, graphheight, border, horstart);
+					}
+					contentLayer.draw(canvas);
+				} else {
+					drawStatic(canvas, width, graphheight, border, horstart);
+				}
+
+				if (maxY == minY) {
+					// if min/max is the same, fake it so that we can render a line
+					if(maxY == 0) {
+						// if both are zero, change the values to prevent division by zero
+						maxY = 1.0d;
+						minY = 0.0d;
+					} else {
+						maxY = maxY*1.05d;
+						minY = minY*0.95d;
+					}
+				}
+				diffY = maxY - minY;
+
+				// visible data of every series
+				if (frameStart.length < frameSeries.size()) {
+					frameStart = new int[frameSeries.size()];
+					frameEnd = new int[frameSeries.size()];
+				}
+				for (int i=0; i<frameSeries.size(); i++) {
+					_values(i);
+					frameStart[i] = valuesStart;
+					frameEnd[i] = valuesEnd;
+				}
+				if (!scrollShift) {
+					seriesLayer.recycle();
+				}
+				useSeriesLayer = scrollShift && isScrollShiftSupported() && viewWidth > 0 && viewHeight > 0 && diffX > 0;
+				layerVersion = seriesLayerVersion;
+				margin = getSeriesMargin();
+
+				drawnMinX = bounds.minX;
+				drawnMaxX = bounds.maxX;
+				drawnHorlabels = horlabels;
+				drawnStaticVersion = staticLayerVersion;
+				drawnStyle = graphViewStyle;
 			}
 
+			boolean valid;
+			try {
+				// without the lock: gestures, setters and the vertical labels are not blocked by heavy series
+				paint.setStrokeCap(Paint.Cap.ROUND);
+				// series are clipped to the plot area, with the margin of their strokes: only this part is
+				// invalidated if the labels don't change, e.g. data outside of manual y bounds must not stay drawn outside of it
+				canvas.save();
+				canvas.clipRect(0, border - margin, viewWidth, viewHeight - border + margin);
+				if (useSeriesLayer) {
+					drawSeriesLayer(canvas, viewWidth, viewHeight, graphheight, border, minX, minY, diffX, diffY, horstart, layerVersion, margin);
+				} else {
+					for (int i=0; i<frameSeries.size(); i++) {
+						GraphViewSeries series = frameSeries.get(i);
+						drawSeries(canvas, series, frameStart[i], frameEnd[i], graphwidth, graphheight, border, minX, minY, diffX, diffY, horstart, series.style);
+					}
+				}
+			} finally {
+				canvas.restore();
+				synchronized (GraphView.this) {
+					drawLegend(canvas, height, width);
+
+					drawnContentLabels.set(drawnMinX, drawnMaxX, drawnHorlabels, drawnStaticVersion, drawnStyle);
+					valid = endRead(frameSeries);
+				}
+			}
+			if (!valid) {
+				// data was overwritten while drawing
+				invalidateContent();
+			}
+		}
+
+		/**
+		 * draws grid, horizontal labels and title
+		 */
+		private void drawStatic(Canvas canvas, float width, float graphheight, float border, float horstart) {
+			int numVerlabels = validateVerlabels(graphheight);
+
 			// vertical lines
 			paint.setTextAlign(Align.LEFT);
-			int vers = verlabels.length - 1;
-			for (int i = 0; i < verlabels.length; i++) {
+			for (int i = 0; i < numVerlabels; i++) {
 				paint.setColor(graphViewStyle.getGridColor());
-				float y = ((graphheight / vers) * i) + border;
+				float y = getVerlabelY(i, numVerlabels, graphheight, border);
 				canvas.drawLine(horstart, y, width, y, paint);
 			}
 
@@ -89,50 +213,64 @@ abstract public class GraphView extends LinearLayout {
 
 			paint.setTextAlign(Align.CENTER);
 			canvas.drawText(title, (graphwidth / 2) + horstart, border - 4, paint);
+		}
 
-			if (maxY == minY) {
-				// if min/max is the same, fake it so that we can render a line
-				if(maxY == 0) {
-					// if both are zero, change the values to prevent division by zero
-					maxY = 1.0d;
-					minY = 0.0d;
-				} else {
-					maxY = maxY*1.05d;
-					minY = minY*0.95d;
+		/**
+		 * draws the series with the scroll shift layer, only the dirty part of the layer is drawn again
+		 */
+		private void drawSeriesLayer(Canvas canvas, int viewWidth, int viewHeight, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, int layerVersion, int margin) {
+			seriesLayer.beginDraw(viewWidth, viewHeight, layerVersion, frameSeries,
+					minX, diffX, minY, diffY, graphwidth, graphheight, horstart + 1, margin);
+			int dirtyLeft = seriesLayer.getDirtyLeft();
+			int dirtyRight = seriesLayer.getDirtyRight();
+			if (dirtyLeft < dirtyRight) {
+				// x range of the dirty part
+				double layerMinX = seriesLayer.getMinX();
+				double scaleX = graphwidth / diffX;
+				double fromX = layerMinX + (dirtyLeft - horstart - 1) / scaleX;
+				double toX = layerMinX + (dirtyRight - horstart - 1) / scaleX;
+				Canvas layerCanvas = seriesLayer.getCanvas();
+				for (int i=0; i<frameSeries.size(); i++) {
+					GraphViewSeries series = frameSeries.get(i);
+					int first = series.lowerBound(fromX);
+					int start = Math.max(first-1, 0); // one before, for the line into the dirty part
+					int last = Math.max(series.upperBound(toX), first);
+					int end = Math.min(last+1, series.size());
+					drawSeries(layerCanvas, series, start, end, graphwidth, graphheight, border, layerMinX, minY, diffX, diffY, horstart, series.style);
 				}
 			}
-
-			double diffY = maxY - minY;
-			paint.setStrokeCap(Paint.Cap.ROUND);
-
-			for (int i=0; i<graphSeries.size(); i++) {
-				drawSeries(canvas, _values(i), graphwidth, graphheight, border, minX, minY, diffX, diffY, horstart, graphSeries.get(i).style);
-			}
-
-			//if (isShowLegend()) 
-            drawLegend(canvas, height, width);
+			seriesLayer.endDraw();
+			seriesLayer.draw(canvas, minX, diffX, graphwidth);
 		}
 
 		private void onMoveGesture(float f) {
 			// view port update
-			if (viewportSize != 0) {
-				viewportStart -= f*viewportSize/graphwidth;
-
-				// minimal and maximal view limit
-				double minX = getMinX(true);
-				double maxX = getMaxX(true);
-				if (viewportStart < minX) {
-					viewportStart = minX;
-				} else if (viewportStart+viewportSize > maxX) {
-					viewportStart = maxX - viewportSize;
-				}
+			synchronized (GraphView.this) {
+				if (viewportSize != 0) {
+					viewportStart -= f*viewportSize/graphwidth;
+
+					// minimal and maximal view limit, of the same data
+					beginRead();
+					try {
+						double minX = getMinX(true);
+						double maxX = getMaxX(true);
+						if (viewportStart < minX) {
+							viewportStart = minX;
+						} else if (viewportStart+viewportSize > maxX) {
+							viewportStart = maxX - viewportSize;
+						}
+					} finally {
+						endRead();
+					}
 
-				// labels have to be regenerated
-				horlabels = null;
-				verlabels = null;
-				viewVerLabels.invalidate();
+					// labels are generated again, if the bounds changed
+					invalidateBounds();
+					horlabels = null;
+					verlabels = null;
+					invalidateVerLabels();
+				}
 			}
-			invalidate();
+			invalidateContent();
 		}
 
 		/**
@@ -167,7 +305,7 @@ abstract public class GraphView extends LinearLayout {
 					handled = true;
 				}
 				if (handled)
-					invalidate();
+					invalidateContent();
 			}
 			return handled;
 		}
@@ -186,11 +324,72 @@ abstract public class GraphView extends LinearLayout {
 		}
 	}
 
+	/**
+	 * snapshot of the bounds of the graph (viewport and y range).
+	 * it is computed once and shared by all parts of the graph while drawing,
+	 * until data, viewport or the manual y axis change.
+	 * @see GraphView#getBounds()
+	 */
+	static final public class GraphViewBounds {
+		double minX;
+		double maxX;
+		double minY;
+		double maxY;
+
+		public double getMinX() {
+			return minX;
+		}
+
+		public double getMaxX() {
+			return maxX;
+		}
+
+		public double getMinY() {
+			return minY;
+		}
+
+		public double getMaxY() {
+			return maxY;
+		}
+	}
+
+	/**
+	 * bounds, labels and versions a view was drawn with,
+	 * so that the view is only invalidated if something that it shows changed
+	 */
+	static private final class DrawnLabels {
+		private boolean drawn;
+		private double min;
+		private double max;
+		private Object labels;
+		private int staticVersion;
+		private GraphViewStyle style;
+		private int styleVersion;
+
+		void set(double min, double max, Object labels, int staticVersion, GraphViewStyle style) {
+			drawn = true;
+			this.min = min;
+			this.max = max;
+			this.labels = labels;
+			this.staticVersion = staticVersion;
+			this.style = style;
+			styleVersion = style.getVersion();
+		}
+
+		boolean changed(double min, double max, Object labels, int staticVersion, GraphViewStyle style) {
+			return !drawn || this.min != min || this.max != max || this.labels != labels
+					|| this.staticVersion != staticVersion || this.style != style || styleVersion != style.getVersion();
+		}
+	}
+
 	public enum LegendAlign {
 		TOP, MIDDLE, BOTTOM
 	}
 
 	private class VerLabelsView extends View {
+		// paint is used by the series without the lock, the labels have their own
+		private final Paint labelPaint = new Paint();
+
 		/**
 		 * @param context
 		 */
@@ -204,24 +403,59 @@ abstract public class GraphView extends LinearLayout {
 		 */
 		@Override
 		protected void onDraw(Canvas canvas) {
-			// normal
-			paint.setStrokeWidth(0);
+			// the labels are shared with the render thread
+			synchronized (GraphView.this) {
+				drainForFrame();
+				beginRead();
+				try {
+					if (applyRedraw() != 0) {
+						postInvalidateContent();
+					}
+					drawVerLabels(canvas);
+				} finally {
+					endRead();
+				}
+			}
+		}
+
+		private void drawVerLabels(Canvas canvas) {
+			// text attributes of the graph
+			labelPaint.setAntiAlias(paint.isAntiAlias());
+			labelPaint.setTextSize(paint.getTextSize());
+			labelPaint.setTextScaleX(paint.getTextScaleX());
+			labelPaint.setTypeface(paint.getTypeface());
 
 			float border = GraphViewConfig.BORDER;
 			float height = getHeight();
 			float graphheight = height - (2 * border);
 
-			if (verlabels == null) {
-				verlabels = generateVerlabels(graphheight);
+			if (staticLayerCache && getWidth() > 0 && getHeight() > 0) {
+				GraphViewBounds bounds = getBounds();
+				if (verLabelsLayer.update(getWidth(), getHeight(), graphViewStyle, staticLayerVersion,
+						0, 0, bounds.minY, bounds.maxY, labelPaint.getTextSize())) {
+					drawLabels(verLabelsLayer.getCanvas(), graphheight, border);
+				}
+				verLabelsLayer.draw(canvas);
+			} else {
+				drawLabels(canvas, graphheight, border);
 			}
+			GraphViewBounds bounds = getBounds();
+			drawnVerLabels.set(bounds.minY, bounds.maxY, verlabels, staticLayerVersion, graphViewStyle);
+		}
+
+		private void drawLabels(Canvas canvas, float graphheight, float border) {
+			int numVerlabels = validateVerlabels(graphheight);
 
 			// vertical labels
-			paint.setTextAlign(Align.LEFT);
-			int vers = verlabels.length - 1;
-			for (int i = 0; i < verlabels.length; i++) {
-				float y = ((graphheight / vers) * i) + border;
-				paint.setColor(graphViewStyle.getVerticalLabelsColor());
-				canvas.drawText(verlabels[i], 0, y, paint);
+			labelPaint.setTextAlign(Align.LEFT);
+			for (int i = 0; i < numVerlabels; i++) {
+				float y = getVerlabelY(i, numVerlabels, graphheight, border);
+				labelPaint.setColor(graphViewStyle.getVerticalLabelsColor());
+				if (verlabels != null) {
+					canvas.drawText(verlabels[i], 0, y, labelPaint);
+				} else {
+					canvas.drawText(generatedVerlabels.chars[i], 0, generatedVerlabels.lengths[i], 0, y, labelPaint);
+				}
 			}
 		}
 	}
@@ -230,24 +464,75 @@ abstract public class GraphView extends LinearLayout {
 	private String[] horlabels;
 	private String[] verlabels;
 	private String title;
-	private boolean scrollable;
+	// read by scrollToEnd on producer threads
+	private volatile boolean scrollable;
 	private boolean disableTouch;
 	private double viewportStart;
 	private double viewportSize;
 	private final View viewVerLabels;
 	private ScaleGestureDetector scaleDetector;
 	private boolean scalable;
-	private final NumberFormat[] numberformatter = new NumberFormat[2];
+	// maximal fraction digits of the y (0) and x (1) labels, -1 => has to be determined
+	private final int[] fractionDigits = {-1, -1};
+	// fraction digits of the formatted generated labels
+	private final int[] formattedFractionDigits = {-1, -1};
+	private final FastNumberFormat numberformatter = new FastNumberFormat();
+	private final char[] formatBuffer = new char[FastNumberFormat.MAX_LENGTH];
+	// true => generated labels are formatted with formatLabel(double, boolean)
+	private boolean stringLabelFormatting;
 	private final List<GraphViewSeries> graphSeries;
 	private boolean showLegend = false;
 	private float legendWidth = 120;
 	private LegendAlign legendAlign = LegendAlign.MIDDLE;
 	private boolean manualYAxis;
+	private boolean niceTicks;
+	// grid, labels and title are cached in bitmaps
+	private boolean staticLayerCache;
+	private final StaticLayer contentLayer = new StaticLayer();
+	private final StaticLayer verLabelsLayer = new StaticLayer();
+	// incremented if labels or title changed, see invalidateStaticLayer
+	private int staticLayerVersion;
+	// series are cached in a bitmap that is shifted while scrolling
+	private boolean scrollShift;
+	private final SeriesLayer seriesLayer = new SeriesLayer();
+	// incremented if the series have to be drawn completely, see invalidateSeriesLayer
+	private int seriesLayerVersion;
 	private double manualMaxYValue;
 	private double manualMinYValue;
 	private GraphViewStyle graphViewStyle;
 	private final GraphViewContentView graphViewContentView;
+	// replaces graphViewContentView, see setRenderOnSurface
+	private volatile GraphSurfaceView surfaceView;
+	// redraw coalescing: the changes since the last frame, see redraw(int)
+	static final int DIRTY_DATA = 1;
+	static final int DIRTY_VIEWPORT = 2;
+	static final int DIRTY_STYLE = 4;
+	static final int DIRTY_SCROLL_TO_END = 8;
+	private volatile boolean redrawCoalescing = true;
+	// applies the changes and invalidates the views, on the UI thread
+	private final Runnable frameCallback;
+	private final FrameScheduler frameScheduler;
+	private final AtomicBoolean framePosted = new AtomicBoolean();
+	// applied by the frame callback or when drawing, see applyRedraw
+	private final AtomicInteger dirtyFlags = new AtomicInteger();
+	private final AtomicLong redrawRequests = new AtomicLong();
+	private final AtomicLong redrawFrames = new AtomicLong();
+	private int surfaceBackgroundColor = Color.BLACK;
 	private CustomLabelFormatter customLabelFormatter;
+	private final GraphViewBounds bounds = new GraphViewBounds();
+	private final RectF legendRect = new RectF();
+	// generated labels (used if no static labels are set), reused while the label values do not change
+	private final GraphViewLabels generatedHorlabels = new GraphViewLabels();
+	private final GraphViewLabels generatedVerlabels = new GraphViewLabels();
+	// what the views were drawn with, see verLabelsChanged and contentLabelsChanged
+	private final DrawnLabels drawnVerLabels = new DrawnLabels();
+	private final DrawnLabels drawnContentLabels = new DrawnLabels();
+	private boolean boundsValid;
+	// sum of the modification counts of all series, when the bounds were computed
+	private long boundsDataVersion;
+	// index range [valuesStart, valuesEnd) of the visible data, set by _values
+	private int valuesStart;
+	private int valuesEnd;
 
 	public GraphView(Context context, AttributeSet attrs) {
 		this(context, attrs.getAttributeValue(null, "title"), null);
@@ -280,41 +565,47 @@ abstract public class GraphView extends LinearLayout {
 
 		this.paint = (paint == null)? new Paint() : paint;
 		graphSeries = new ArrayList<GraphViewSeries>();
+		stringLabelFormatting = isFormatLabelOverridden();
 
 		viewVerLabels = new VerLabelsView(context);
 		addView(viewVerLabels);
 		graphViewContentView = new GraphViewContentView(context);
 		addView(graphViewContentView, new LayoutParams(LayoutParams.FILL_PARENT, LayoutParams.FILL_PARENT, 1));
+
+		frameCallback = new Runnable() {
+			@Override
+			public void run() {
+				framePosted.set(false);
+				redrawFrames.incrementAndGet();
+				int flags = applyRedraw();
+				invalidateViews((flags & DIRTY_STYLE) != 0);
+			}
+		};
+		frameScheduler = new FrameScheduler(frameCallback);
 	}
 
-	private GraphViewData[] _values(int idxSeries) {
-		GraphViewData[] values = graphSeries.get(idxSeries).values;
+	/**
+	 * sets valuesStart and valuesEnd to the index range of the visible data of a series.
+	 * the data itself is not copied, the range is found by binary search (data is sorted by x).
+	 * @param idxSeries index of the series
+	 */
+	private void _values(int idxSeries) {
+		GraphViewSeries series = graphSeries.get(idxSeries);
+		int size = series.size();
 		if (viewportStart == 0 && viewportSize == 0) {
 			// all data
-			return values;
+			valuesStart = 0;
+			valuesEnd = size;
 		} else {
 			// viewport
-			List<GraphViewData> listData = new ArrayList<GraphViewData>();
-			for (int i=0; i<values.length; i++) {
-				if (values[i].valueX >= viewportStart) {
-					if (values[i].valueX > viewportStart+viewportSize) {
-						listData.add(values[i]); // one more for nice scrolling
-						break;
-					} else {
-						listData.add(values[i]);
-					}
-				} else {
-					if (listData.isEmpty()) {
-						listData.add(values[i]);
-					}
-					listData.set(0, values[i]); // one before, for nice scrolling
-				}
-			}
-			return listData.toArray(new GraphViewData[listData.size()]);
+			int first = series.lowerBound(viewportStart);
+			valuesStart = Math.max(first-1, 0); // one before, for nice scrolling
+			int last = Math.max(series.upperBound(viewportStart+viewportSize), first);
+			valuesEnd = Math.min(last+1, size); // one more for nice scrolling
 		}
 	}
 
-	public void addSeries(GraphViewSeries series) {
+	synchronized public void addSeries(GraphViewSeries series) {
 		series.addGraphView(this);
 		graphSeries.add(series);
 		redrawAll();
@@ -342,11 +633,13 @@ abstract public class GraphView extends LinearLayout {
 		}
 		float lRight = lLeft+legendWidth;
 		float lBottom = lTop+legendHeight;
-		canvas.drawRoundRect(new RectF(lLeft, lTop, lRight, lBottom), 8, 8, paint);
+		legendRect.set(lLeft, lTop, lRight, lBottom);
+		canvas.drawRoundRect(legendRect, 8, 8, paint);
 
 		for (int i=0; i<graphSeries.size(); i++) {
 			paint.setColor(graphSeries.get(i).style.color);
-			canvas.drawRect(new RectF(lLeft+5, lTop+5+(i*(shapeSize+5)), lLeft+5+shapeSize, lTop+((i+1)*(shapeSize+5))), paint);
+			legendRect.set(lLeft+5, lTop+5+(i*(shapeSize+5)), lLeft+5+shapeSize, lTop+((i+1)*(shapeSize+5)));
+			canvas.drawRect(legendRect, paint);
 			if (graphSeries.get(i).description != null) {
 				paint.setColor(Color.WHITE);
 				paint.setTextAlign(Align.LEFT);
@@ -357,30 +650,83 @@ abstract public class GraphView extends LinearLayout {
 
     protected void drawHorizontalLabelsLines(Canvas canvas, float graphwidth,
             float graphheight, float border, float horstart) {
-		if (horlabels == null) {
-			horlabels = generateHorlabels(graphwidth);
+		int numHorlabels;
+		if (horlabels != null) {
+			numHorlabels = horlabels.length;
+		} else {
+			GraphViewBounds bounds = getBounds();
+			if (!generatedHorlabels.isGenerated(bounds.minX, bounds.maxX, graphwidth)) {
+				generateHorlabels(graphwidth);
+			}
+			numHorlabels = generatedHorlabels.count;
 		}
 		float height = graphheight + (2 * border);
-        int hors = horlabels.length - 1;
-        for (int i = 0; i < horlabels.length; i++) {
+        int hors = numHorlabels - 1;
+        GraphViewLabels labels = generatedHorlabels;
+        boolean placedByValue = horlabels == null && labels.placedByValue;
+        for (int i = 0; i < numHorlabels; i++) {
             paint.setColor(graphViewStyle.getGridColor());
-            float x = ((graphwidth / hors) * i) + horstart;
+            float x;
+            if (placedByValue) {
+                x = (float) ((labels.values[i] - labels.min) / (labels.max - labels.min)) * graphwidth + horstart;
+            } else {
+                x = ((graphwidth / hors) * i) + horstart;
+            }
             canvas.drawLine(x, height - border, x, border, paint);
             paint.setTextAlign(Align.CENTER);
-            if (i==horlabels.length-1)
-                paint.setTextAlign(Align.RIGHT);
-            if (i==0)
-                paint.setTextAlign(Align.LEFT);
+            if (placedByValue) {
+                // keep the label inside the graph
+                float halfTextWidth = paint.measureText(labels.chars[i], 0, labels.lengths[i]) / 2;
+                if (x + halfTextWidth > graphwidth + horstart)
+                    paint.setTextAlign(Align.RIGHT);
+                if (x - halfTextWidth < horstart)
+                    paint.setTextAlign(Align.LEFT);
+            } else {
+                if (i==numHorlabels-1)
+                    paint.setTextAlign(Align.RIGHT);
+                if (i==0)
+                    paint.setTextAlign(Align.LEFT);
+            }
             paint.setColor(graphViewStyle.getHorizontalLabelsColor());
-            canvas.drawText(horlabels[i], x, height - 4, paint);
+            if (horlabels != null) {
+                canvas.drawText(horlabels[i], x, height - 4, paint);
+            } else {
+                canvas.drawText(generatedHorlabels.chars[i], 0, generatedHorlabels.lengths[i], x, height - 4, paint);
+            }
         }
     }
 
-	abstract public void drawSeries(Canvas canvas, GraphViewData[] values, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, GraphViewSeriesStyle style);
+	/**
+	 * draws the data of a series.
+	 * The default passes the data to {@link #drawSeries(Canvas, GraphViewData[], float, float, float, double, double, double, double, float, GraphViewSeriesStyle)},
+	 * with a new GraphViewData per value, for graphs that still override it. The built-in graphs override this method.
+	 * @param canvas
+	 * @param series the series, use {@link GraphViewSeries#getX(int)} and {@link GraphViewSeries#getY(int)} to read the data
+	 * @param start index of the first visible data
+	 * @param end index after the last visible data
+	 */
+	public void drawSeries(Canvas canvas, GraphViewSeries series, int start, int end, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, GraphViewSeriesStyle style) {
+		GraphViewData[] values = new GraphViewData[end - start];
+		for (int i = start; i < end; i++) {
+			values[i - start] = new GraphViewData(series.getX(i), series.getY(i));
+		}
+		drawSeries(canvas, values, graphwidth, graphheight, border, minX, minY, diffX, diffY, horstart, style);
+	}
+
+	/**
+	 * draws the visible data of a series
+	 * @deprecated override {@link #drawSeries(Canvas, GraphViewSeries, int, int, float, float, float, double, double, double, double, float, GraphViewSeriesStyle)},
+	 * it reads the data of the series without an object per value
+	 */
+	@Deprecated
+	public void drawSeries(Canvas canvas, GraphViewData[] values, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, GraphViewSeriesStyle style) {
+	}
 
 	/**
 	 * formats the label
-	 * can be overwritten
+	 * can be overwritten, an override is detected when the view is built and then used for the generated labels
+	 * (see {@link #setStringLabelFormatting(boolean)}).
+	 * Prefer overriding {@link #formatLabel(double, boolean, char[])}, it does not allocate.
 	 * @param value x and y values
 	 * @param isValueX if false, value y wants to be formatted
 	 * @return value to display
@@ -392,42 +738,150 @@ abstract public class GraphView extends LinearLayout {
 				return label;
 			}
 		}
+		return new String(formatBuffer, 0, formatLabel(value, isValueX, formatBuffer));
+	}
+
+	/**
+	 * formats a generated label into a reused buffer.
+	 * can be overwritten, the default writes the number with the fraction digits chosen from the range of the axis.
+	 * A {@link CustomLabelFormatter} takes precedence.
+	 * @param value x and y values
+	 * @param isValueX if false, value y wants to be formatted
+	 * @param buffer destination, at most buffer.length chars can be written
+	 * @return number of chars written
+	 */
+	protected int formatLabel(double value, boolean isValueX, char[] buffer) {
+		return formatNumber(value, isValueX, buffer);
+	}
+
+	/**
+	 * formats a number with the fraction digits chosen from the range of the axis
+	 * @return number of chars written to the buffer
+	 */
+	private int formatNumber(double value, boolean isValueX, char[] buffer) {
 		int i = isValueX ? 1 : 0;
-		if (numberformatter[i] == null) {
-			numberformatter[i] = NumberFormat.getNumberInstance();
-			double highestvalue = isValueX ? getMaxX(false) : getMaxY();
-			double lowestvalue = isValueX ? getMinX(false) : getMinY();
+		validateFractionDigits(isValueX);
+		return numberformatter.format(value, fractionDigits[i], buffer);
+	}
+
+	/**
+	 * chooses the fraction digits of an axis from its range, if they were reset.
+	 * The formatted labels of the axis are dropped, if the digits changed.
+	 */
+	private void validateFractionDigits(boolean isValueX) {
+		int i = isValueX ? 1 : 0;
+		if (fractionDigits[i] < 0) {
+			GraphViewBounds bounds = getBounds();
+			double highestvalue = isValueX ? bounds.maxX : bounds.maxY;
+			double lowestvalue = isValueX ? bounds.minX : bounds.minY;
 			if (highestvalue - lowestvalue < 0.1) {
-				numberformatter[i].setMaximumFractionDigits(6);
+				fractionDigits[i] = 6;
 			} else if (highestvalue - lowestvalue < 1) {
-				numberformatter[i].setMaximumFractionDigits(4);
+				fractionDigits[i] = 4;
 			} else if (highestvalue - lowestvalue < 20) {
-				numberformatter[i].setMaximumFractionDigits(3);
+				fractionDigits[i] = 3;
 			} else if (highestvalue - lowestvalue < 100) {
-				numberformatter[i].setMaximumFractionDigits(1);
+				fractionDigits[i] = 1;
 			} else {
-				numberformatter[i].setMaximumFractionDigits(0);
+				fractionDigits[i] = 0;
+			}
+			if (fractionDigits[i] != formattedFractionDigits[i]) {
+				GraphViewLabels labels = isValueX ? generatedHorlabels : generatedVerlabels;
+				labels.clear();
+				formattedFractionDigits[i] = fractionDigits[i];
 			}
 		}
-		return numberformatter[i].format(value);
 	}
 
-	private String[] generateHorlabels(float graphwidth) {
+	/**
+	 * formats label i of the generated labels, if its value changed.
+	 * With {@link #setStringLabelFormatting(boolean)} {@link #formatLabel(double, boolean)} is used, else
+	 * a {@link CustomLabelFormatter} takes precedence and otherwise the label is written
+	 * directly into its buffer with {@link #formatLabel(double, boolean, char[])}.
+	 */
+	private void formatLabel(GraphViewLabels labels, int i, double value, boolean isValueX) {
+		if (labels.reuse(i, value)) {
+			return;
+		}
+		String label = null;
+		if (stringLabelFormatting) {
+			label = formatLabel(value, isValueX);
+		} else if (customLabelFormatter != null) {
+			label = customLabelFormatter.formatLabel(value, isValueX);
+		}
+		if (label != null) {
+			labels.set(i, value, label);
+		} else {
+			labels.setFormatted(i, value, formatLabel(value, isValueX, labels.chars[i]));
+		}
+	}
+
+	private void generateHorlabels(float graphwidth) {
 		int numLabels = (int) (graphwidth/GraphViewConfig.VERTICAL_LABEL_WIDTH);
-		String[] labels = new String[numLabels+1];
-		double min = getMinX(false);
-		double max = getMaxX(false);
-		for (int i=0; i<=numLabels; i++) {
-			labels[i] = formatLabel(min + ((max-min)*i/numLabels), true);
+		GraphViewLabels labels = generatedHorlabels;
+		validateFractionDigits(true);
+		GraphViewBounds bounds = getBounds();
+		double min = bounds.minX;
+		double max = bounds.maxX;
+		if (!niceTicks || !generateNiceTicks(labels, min, max, numLabels, true)) {
+			labels.setCount(numLabels+1);
+			labels.placedByValue = false;
+			for (int i=0; i<=numLabels; i++) {
+				formatLabel(labels, i, min + ((max-min)*i/numLabels), true);
+			}
 		}
-		return labels;
+		labels.setGenerated(bounds.minX, bounds.maxX, graphwidth);
 	}
 
-	synchronized private String[] generateVerlabels(float graphheight) {
+	/**
+	 * generates labels at "nice" round values (1, 2 or 5 * 10^n multiples) within [min, max].
+	 * The values are anchored to multiples of the step, so they don't change while scrolling
+	 * and only labels that scroll into the view have to be formatted.
+	 * @param maxTicks approximate maximal number of intervals
+	 * @return false, if no nice ticks can be generated for the range
+	 */
+	private boolean generateNiceTicks(GraphViewLabels labels, double min, double max, int maxTicks, boolean isValueX) {
+		double range = max - min;
+		if (!(range > 0) || Double.isInfinite(range) || maxTicks < 1) {
+			return false;
+		}
+		double rough = range / maxTicks;
+		double magnitude = Math.pow(10, Math.floor(Math.log10(rough)));
+		double fraction = rough / magnitude;
+		double step;
+		if (fraction <= 1) {
+			step = magnitude;
+		} else if (fraction <= 2) {
+			step = 2 * magnitude;
+		} else if (fraction <= 5) {
+			step = 5 * magnitude;
+		} else {
+			step = 10 * magnitude;
+		}
+		long first = (long) Math.ceil(min / step);
+		long last = (long) Math.floor(max / step);
+		if (last < first || last - first > 4 * maxTicks) {
+			return false;
+		}
+		int count = (int) (last - first + 1);
+		labels.setCount(count);
+		labels.placedByValue = true;
+		labels.min = min;
+		labels.max = max;
+		for (int i=0; i<count; i++) {
+			// computed from the tick number, so the same tick has always exactly the same value
+			formatLabel(labels, i, (first + i) * step, isValueX);
+		}
+		return true;
+	}
+
+	synchronized private void generateVerlabels(float graphheight) {
 		int numLabels = (int) (graphheight/GraphViewConfig.HORIZONTAL_LABEL_HEIGHT);
-		String[] labels = new String[numLabels+1];
-		double min = getMinY();
-		double max = getMaxY();
+		GraphViewLabels labels = generatedVerlabels;
+		validateFractionDigits(false);
+		GraphViewBounds bounds = getBounds();
+		double min = bounds.minY;
+		double max = bounds.maxY;
 		if (max == min) {
 			// if min/max is the same, fake it so that we can render a line
 			if(max == 0) {
@@ -440,10 +894,78 @@ abstract public class GraphView extends LinearLayout {
 			}
 		}
 
-		for (int i=0; i<=numLabels; i++) {
-			labels[numLabels-i] = formatLabel(min + ((max-min)*i/numLabels), false);
+		if (!niceTicks || !generateNiceTicks(labels, min, max, numLabels, false)) {
+			labels.setCount(numLabels+1);
+			labels.placedByValue = false;
+			for (int i=0; i<=numLabels; i++) {
+				formatLabel(labels, numLabels-i, min + ((max-min)*i/numLabels), false);
+			}
+		}
+		labels.setGenerated(bounds.minY, bounds.maxY, graphheight);
+	}
+
+	/**
+	 * @return y position of vertical label i
+	 */
+	private float getVerlabelY(int i, int numVerlabels, float graphheight, float border) {
+		GraphViewLabels labels = generatedVerlabels;
+		if (verlabels == null && labels.placedByValue) {
+			// nice ticks are sorted ascending, from the bottom
+			return border + graphheight - (float) ((labels.values[i] - labels.min) / (labels.max - labels.min)) * graphheight;
+		}
+		return ((graphheight / (numVerlabels - 1)) * i) + border;
+	}
+
+	/**
+	 * generates the vertical labels if necessary
+	 * @return number of vertical labels
+	 */
+	private int validateVerlabels(float graphheight) {
+		if (verlabels != null) {
+			return verlabels.length;
+		}
+		GraphViewBounds bounds = getBounds();
+		if (!generatedVerlabels.isGenerated(bounds.minY, bounds.maxY, graphheight)) {
+			generateVerlabels(graphheight);
+		}
+		return generatedVerlabels.count;
+	}
+
+	/**
+	 * returns the bounds of the current viewport: {@link #getMinX(boolean)}, {@link #getMaxX(boolean)} (not ignoring the viewport),
+	 * {@link #getMinY()} and {@link #getMaxY()}.
+	 * The values are computed once and cached until data, viewport or the manual y axis change,
+	 * so that all parts of the graph share them during one frame.
+	 * The data of the series is pinned while computing, see {@link GraphViewSeries#beginRead()}.
+	 * Do not modify the returned object.
+	 */
+	synchronized protected GraphViewBounds getBounds() {
+		beginRead();
+		try {
+			long dataVersion = 0;
+			for (int i=0; i<graphSeries.size(); i++) {
+				dataVersion += graphSeries.get(i).getModCount();
+			}
+			if (!boundsValid || dataVersion != boundsDataVersion) {
+				bounds.minX = getMinX(false);
+				bounds.maxX = getMaxX(false);
+				bounds.minY = getMinY();
+				bounds.maxY = getMaxY();
+				boundsDataVersion = dataVersion;
+				boundsValid = true;
+			}
+		} finally {
+			endRead();
 		}
-		return labels;
+		return bounds;
+	}
+
+	/**
+	 * the cached bounds will be recomputed.
+	 * has to be called by subclasses, if something that changes the bounds was modified.
+	 */
+	protected void invalidateBounds() {
+		boundsValid = false;
 	}
 
 	public CustomLabelFormatter getCustomLabelFormatter() {
@@ -479,14 +1001,16 @@ abstract public class GraphView extends LinearLayout {
 			double highest = 0;
 			if (graphSeries.size() > 0)
 			{
-				GraphViewData[] values = graphSeries.get(0).values;
-				if (values.length == 0) {
+				GraphViewSeries series = graphSeries.get(0);
+				if (series.size() == 0) {
 					highest = 0;
 				} else {
-					highest = values[values.length-1].valueX;
+					highest = series.getX(series.size()-1);
 					for (int i=1; i<graphSeries.size(); i++) {
-						values = graphSeries.get(i).values;
-						highest = Math.max(highest, values[values.length-1].valueX);
+						series = graphSeries.get(i);
+						if (series.size() > 0) {
+							highest = Math.max(highest, series.getX(series.size()-1));
+						}
 					}
 				}
 			}
@@ -506,10 +1030,10 @@ abstract public class GraphView extends LinearLayout {
 		} else {
 			largest = Integer.MIN_VALUE;
 			for (int i=0; i<graphSeries.size(); i++) {
-				GraphViewData[] values = _values(i);
-				for (int ii=0; ii<values.length; ii++)
-					if (values[ii].valueY > largest)
-						largest = values[ii].valueY;
+				_values(i);
+				double max = graphSeries.get(i).getMaxY(valuesStart, valuesEnd);
+				if (max > largest)
+					largest = max;
 			}
 		}
 		return largest;
@@ -532,14 +1056,16 @@ abstract public class GraphView extends LinearLayout {
 			double lowest = 0;
 			if (graphSeries.size() > 0)
 			{
-				GraphViewData[] values = graphSeries.get(0).values;
-				if (values.length == 0) {
+				GraphViewSeries series = graphSeries.get(0);
+				if (series.size() == 0) {
 					lowest = 0;
 				} else {
-					lowest = values[0].valueX;
+					lowest = series.getX(0);
 					for (int i=1; i<graphSeries.size(); i++) {
-						values = graphSeries.get(i).values;
-						lowest = Math.min(lowest, values[0].valueX);
+						series = graphSeries.get(i);
+						if (series.size() > 0) {
+							lowest = Math.min(lowest, series.getX(0));
+						}
 					}
 				}
 			}
@@ -559,15 +1085,31 @@ abstract public class GraphView extends LinearLayout {
 		} else {
 			smallest = Integer.MAX_VALUE;
 			for (int i=0; i<graphSeries.size(); i++) {
-				GraphViewData[] values = _values(i);
-				for (int ii=0; ii<values.length; ii++)
-					if (values[ii].valueY < smallest)
-						smallest = values[ii].valueY;
+				_values(i);
+				double min = graphSeries.get(i).getMinY(valuesStart, valuesEnd);
+				if (min < smallest)
+					smallest = min;
 			}
 		}
 		return smallest;
 	}
 
+	public boolean isNiceTicks() {
+		return niceTicks;
+	}
+
+	public boolean isStaticLayerCache() {
+		return staticLayerCache;
+	}
+
+	public boolean isScrollShift() {
+		return scrollShift;
+	}
+
+	public boolean isRenderOnSurface() {
+		return surfaceView != null;
+	}
+
 	public boolean isDisableTouch() {
 		return disableTouch;
 	}
@@ -581,18 +1123,308 @@ abstract public class GraphView extends LinearLayout {
 	}
 
 	public void redrawAll() {
+		redraw(DIRTY_DATA | DIRTY_VIEWPORT | DIRTY_STYLE);
+	}
+
+	/**
+	 * the graph will be drawn again, with new labels. Can be called from any thread:
+	 * the request is only recorded, the bounds and labels are recomputed under the lock
+	 * at the beginning of the next frame, see {@link #applyRedraw()}.
+	 * Requests are coalesced: the views are invalidated at most once per display frame,
+	 * see {@link #setRedrawCoalescing(boolean)}.
+	 * @param flags what changed, DIRTY_DATA, DIRTY_VIEWPORT, DIRTY_STYLE, DIRTY_SCROLL_TO_END
+	 */
+	void redraw(int flags) {
+		redrawRequests.incrementAndGet();
+		addDirtyFlags(flags);
+		if (redrawCoalescing) {
+			if (framePosted.compareAndSet(false, true)) {
+				frameScheduler.postFrame();
+			}
+		} else if (Looper.myLooper() == Looper.getMainLooper()) {
+			frameCallback.run();
+		} else {
+			// views can only be invalidated on the UI thread
+			frameScheduler.post();
+		}
+	}
+
+	/**
+	 * @param all true => every view is invalidated completely, e.g. because the style changed.
+	 * false => only the views whose labels changed, and the plot area
+	 */
+	private void invalidateViews(boolean all) {
+		// the container itself draws nothing, only its children are invalidated
+		if (all) {
+			viewVerLabels.invalidate();
+		} else {
+			invalidateVerLabels();
+		}
+		invalidateContent(all);
+	}
+
+	/**
+	 * invalidates the vertical labels view, if its labels changed
+	 */
+	private void invalidateVerLabels() {
+		if (verLabelsChanged()) {
+			viewVerLabels.invalidate();
+		}
+	}
+
+	/**
+	 * @return true, if the y range, the vertical labels or the style changed since the vertical labels view was drawn
+	 */
+	synchronized private boolean verLabelsChanged() {
+		if ((dirtyFlags.get() & DIRTY_STYLE) != 0) {
+			return true;
+		}
+		GraphViewBounds bounds = getBounds();
+		return drawnVerLabels.changed(bounds.minY, bounds.maxY, verlabels, staticLayerVersion, graphViewStyle);
+	}
+
+	/**
+	 * @return true, if the x range, the horizontal labels, the title or the style changed since the content was drawn,
+	 * then not only the plot area has to be drawn again
+	 */
+	synchronized private boolean contentLabelsChanged() {
+		if ((dirtyFlags.get() & DIRTY_STYLE) != 0) {
+			return true;
+		}
+		GraphViewBounds bounds = getBounds();
+		return drawnContentLabels.changed(bounds.minX, bounds.maxX, horlabels, staticLayerVersion, graphViewStyle);
+	}
+
+	/**
+	 * @return false, if something outside of the plot area of the content view can change
+	 * while the labels don't change, e.g. because a subclass draws data there.
+	 * Then the content view is always invalidated completely.
+	 */
+	protected boolean isPlotInvalidationSupported() {
+		return true;
+	}
+
+	/**
+	 * @return pixels that a series may draw outside of the plot area, the series are clipped there
+	 */
+	private int getSeriesMargin() {
+		int margin = 2;
+		for (int i=0; i<graphSeries.size(); i++) {
+			margin = Math.max(margin, (int) Math.ceil(graphSeries.get(i).style.thickness) + 2);
+		}
+		return margin;
+	}
+
+	/**
+	 * applies the redraw requests since the last frame: the bounds are recomputed,
+	 * static labels are reset and the number format is chosen again.
+	 * Called once per frame by the frame callback, and before drawing for requests that came later.
+	 * @return the applied flags, 0 if there were no requests
+	 */
+	synchronized private int applyRedraw() {
+		int flags = dirtyFlags.getAndSet(0);
+		if (flags == 0) {
+			return 0;
+		}
+		if ((flags & DIRTY_SCROLL_TO_END) != 0 && scrollable) {
+			beginRead();
+			try {
+				viewportStart = getMaxX(true) - viewportSize;
+			} finally {
+				endRead();
+			}
+		}
+		invalidateBounds();
+		if (verlabels != null || horlabels != null) {
+			invalidateStaticLayer();
+		}
 		verlabels = null;
 		horlabels = null;
-		numberformatter[0] = null;
-		numberformatter[1] = null;
-		invalidate();
-		viewVerLabels.invalidate();
-		graphViewContentView.invalidate();
+		if ((flags & (DIRTY_DATA | DIRTY_VIEWPORT)) != 0) {
+			// the number format depends on the range,
+			// the labels are generated again if the bounds changed
+			fractionDigits[0] = -1;
+			fractionDigits[1] = -1;
+		}
+		if ((flags & DIRTY_STYLE) != 0) {
+			clearLabelCache();
+		}
+		return flags;
+	}
+
+	/**
+	 * @return number of redraw requests ({@link #redrawAll()}, {@link #scrollToEnd()}, appended data, ...)
+	 */
+	public long getRedrawRequests() {
+		return redrawRequests.get();
+	}
+
+	/**
+	 * @return number of redraws that were done for the requests, the other requests were coalesced
+	 */
+	public long getRedrawFrames() {
+		return redrawFrames.get();
+	}
+
+	public boolean isRedrawCoalescing() {
+		return redrawCoalescing;
+	}
+
+	/**
+	 * if enabled (default), redraw requests are coalesced and done at most once per display frame
+	 * (Choreographer on API 16, otherwise posted to the main thread).
+	 * if disabled, every request invalidates the views immediately.
+	 * @param redrawCoalescing
+	 */
+	public void setRedrawCoalescing(boolean redrawCoalescing) {
+		this.redrawCoalescing = redrawCoalescing;
+	}
+
+	/**
+	 * the cached grid, labels and title will be drawn again.
+	 * Size, {@link GraphViewStyle}, bounds and text size are checked automatically;
+	 * has to be called by subclasses, if something else that is drawn in the static layer was modified.
+	 */
+	protected void invalidateStaticLayer() {
+		staticLayerVersion++;
+	}
+
+	/**
+	 * the series will be drawn completely again, if {@link #setScrollShift(boolean)} is enabled.
+	 * Viewport, bounds and data are checked automatically;
+	 * has to be called if something else that changes the drawn series was modified, e.g. the style of a series.
+	 */
+	synchronized public void invalidateSeriesLayer() {
+		seriesLayerVersion++;
+		invalidateContent();
+	}
+
+	/**
+	 * @return false, if the series cannot be drawn partially with {@link #setScrollShift(boolean)},
+	 * e.g. because they are not placed by their x values
+	 */
+	protected boolean isScrollShiftSupported() {
+		return true;
+	}
+
+	/**
+	 * pins the data of all series for the current thread, see {@link GraphViewSeries#beginRead()}.
+	 * has to be called with the lock, like {@link #endRead()}
+	 */
+	private void beginRead() {
+		beginRead(graphSeries);
+	}
+
+	/**
+	 * @return false, if data was overwritten while it was read
+	 */
+	private boolean endRead() {
+		return endRead(graphSeries);
+	}
+
+	private static void beginRead(List<GraphViewSeries> series) {
+		for (int i=0; i<series.size(); i++) {
+			series.get(i).beginRead();
+		}
+	}
+
+	private static boolean endRead(List<GraphViewSeries> series) {
+		boolean valid = true;
+		for (int i=0; i<series.size(); i++) {
+			valid &= series.get(i).endRead();
+		}
+		return valid;
 	}
 
-	public void removeAllSeries() {
-		for (GraphViewSeries s : graphSeries) {
-			s.removeGraphView(this);
+	private void addDirtyFlags(int flags) {
+		int old;
+		do {
+			old = dirtyFlags.get();
+		} while (!dirtyFlags.compareAndSet(old, old | flags));
+	}
+
+	/**
+	 * adds the data posted to the series, see {@link GraphViewSeries#postData(double, double, boolean)}.
+	 * The changes are recorded for {@link #applyRedraw()} of this frame,
+	 * the other graph views of the series are asked to redraw.
+	 */
+	private void drainForFrame() {
+		for (int i=0; i<graphSeries.size(); i++) {
+			addDirtyFlags(graphSeries.get(i).drainForFrame(this));
+		}
+	}
+
+	/**
+	 * called by producers of posted data, from any thread: the next frame adds the data
+	 */
+	void requestDrain() {
+		// the content drains the data and invalidates the vertical labels, if they changed
+		postInvalidateContent();
+	}
+
+	/**
+	 * like invalidateContent, from any thread
+	 */
+	private void postInvalidateContent() {
+		GraphSurfaceView surfaceView = this.surfaceView;
+		if (surfaceView != null) {
+			surfaceView.requestRender();
+		} else {
+			graphViewContentView.postInvalidate();
+		}
+	}
+
+	/**
+	 * the content (grid, series, legend) will be drawn again, by the view or the render thread.
+	 * If the labels of the content view did not change, only its plot area is invalidated.
+	 * The surface is always drawn completely.
+	 */
+	private void invalidateContent() {
+		invalidateContent(false);
+	}
+
+	/**
+	 * @param all true => the content view is invalidated completely
+	 */
+	private void invalidateContent(boolean all) {
+		GraphSurfaceView surfaceView = this.surfaceView;
+		if (surfaceView != null) {
+			surfaceView.requestRender();
+		} else if (!all && isPlotInvalidationSupported() && !contentLabelsChanged()) {
+			int border = (int) GraphViewConfig.BORDER;
+			int margin = getSeriesMargin();
+			View view = graphViewContentView;
+			view.invalidate(0, border - margin, view.getWidth(), view.getHeight() - border + margin);
+		} else {
+			graphViewContentView.invalidate();
+		}
+	}
+
+	/**
+	 * draws a frame of the render thread of {@link #setRenderOnSurface(boolean)}
+	 */
+	void drawSurface(Canvas canvas, int width, int height) {
+		graphViewContentView.drawContent(canvas, width, height);
+	}
+
+	/**
+	 * gestures on the surface are handled like gestures on the content view
+	 */
+	boolean onSurfaceTouchEvent(MotionEvent event) {
+		return graphViewContentView.onTouchEvent(event);
+	}
+
+	/**
+	 * the generated labels have to be formatted again, e.g. because the formatting changed
+	 */
+	private void clearLabelCache() {
+		generatedHorlabels.clear();
+		generatedVerlabels.clear();
+	}
+
+	synchronized public void removeAllSeries() {
+		for (int i=0; i<graphSeries.size(); i++) {
+			graphSeries.get(i).removeGraphView(this);
 		}
 		while (!graphSeries.isEmpty()) {
 			graphSeries.remove(0);
@@ -600,7 +1432,7 @@ abstract public class GraphView extends LinearLayout {
 		redrawAll();
 	}
 
-	public void removeSeries(GraphViewSeries series) {
+	synchronized public void removeSeries(GraphViewSeries series) {
 		series.removeGraphView(this);
 		graphSeries.remove(series);
 		redrawAll();
@@ -614,15 +1446,19 @@ abstract public class GraphView extends LinearLayout {
 		removeSeries(graphSeries.get(index));
 	}
 
+	/**
+	 * scrolls to the end (maxX). Can be called from any thread,
+	 * the viewport is moved under the lock at the beginning of the next frame.
+	 */
 	public void scrollToEnd() {
 		if (!scrollable) throw new IllegalStateException("This GraphView is not scrollable.");
-		double max = getMaxX(true);
-		viewportStart = max-viewportSize;
-		redrawAll();
+		redraw(DIRTY_DATA | DIRTY_VIEWPORT | DIRTY_SCROLL_TO_END);
 	}
 
-	public void setCustomLabelFormatter(CustomLabelFormatter customLabelFormatter) {
+	synchronized public void setCustomLabelFormatter(CustomLabelFormatter customLabelFormatter) {
 		this.customLabelFormatter = customLabelFormatter;
+		clearLabelCache();
+		invalidateStaticLayer();
 	}
 
 	/**
@@ -633,7 +1469,7 @@ abstract public class GraphView extends LinearLayout {
 		this.disableTouch = disableTouch;
 	}
 
-	public void setGraphViewStyle(GraphViewStyle style) {
+	synchronized public void setGraphViewStyle(GraphViewStyle style) {
 		graphViewStyle = style;
 	}
 
@@ -641,8 +1477,125 @@ abstract public class GraphView extends LinearLayout {
 	 * set's static horizontal labels (from left to right)
 	 * @param horlabels if null, labels were generated automatically
 	 */
-	public void setHorizontalLabels(String[] horlabels) {
+	synchronized public void setHorizontalLabels(String[] horlabels) {
 		this.horlabels = horlabels;
+		generatedHorlabels.valid = false;
+		invalidateStaticLayer();
+	}
+
+	/**
+	 * if enabled, the generated labels are placed at round values (multiples of 1, 2 or 5 * 10^n)
+	 * instead of evenly dividing the axis. The labels stay at the same values while scrolling,
+	 * so only labels that scroll into the view have to be formatted.
+	 * @param niceTicks
+	 */
+	synchronized public void setNiceTicks(boolean niceTicks) {
+		this.niceTicks = niceTicks;
+		generatedHorlabels.valid = false;
+		generatedVerlabels.valid = false;
+		invalidateStaticLayer();
+		invalidateViews(true);
+	}
+
+	/**
+	 * @return true if a subclass overrides {@link #formatLabel(double, boolean)}
+	 */
+	private boolean isFormatLabelOverridden() {
+		for (Class<?> c = getClass(); c != GraphView.class; c = c.getSuperclass()) {
+			try {
+				c.getDeclaredMethod("formatLabel", double.class, boolean.class);
+				return true;
+			} catch (NoSuchMethodException e) {
+				// not in this class
+			}
+		}
+		return false;
+	}
+
+	public boolean isStringLabelFormatting() {
+		return stringLabelFormatting;
+	}
+
+	/**
+	 * if enabled, the generated labels are formatted with {@link #formatLabel(double, boolean)}, one String per formatted label.
+	 * if disabled, {@link #formatLabel(double, boolean, char[])} is used.
+	 * The default is enabled if a subclass overrides {@link #formatLabel(double, boolean)}, else disabled.
+	 * @param stringLabelFormatting
+	 */
+	synchronized public void setStringLabelFormatting(boolean stringLabelFormatting) {
+		this.stringLabelFormatting = stringLabelFormatting;
+		clearLabelCache();
+		invalidateStaticLayer();
+	}
+
+	/**
+	 * if enabled, the grid, the labels and the title are drawn once into offscreen bitmaps
+	 * and reused until the size, the {@link GraphViewStyle}, the labels or the bounds change.
+	 * Useful for realtime graphs with fixed bounds (e.g. manual y axis), then only the series are drawn again.
+	 * Note: drawings of subclasses in {@link #drawHorizontalLabelsLines(Canvas, float, float, float, float)} are cached, too.
+	 * @param staticLayerCache
+	 */
+	synchronized public void setStaticLayerCache(boolean staticLayerCache) {
+		this.staticLayerCache = staticLayerCache;
+		if (!staticLayerCache) {
+			contentLayer.recycle();
+			verLabelsLayer.recycle();
+		}
+		invalidateViews(true);
+	}
+
+	/**
+	 * if enabled, the series are drawn into an offscreen bitmap. While scrolling (touch or {@link #scrollToEnd()})
+	 * the bitmap of the last frame is shifted and only the newly exposed strip and appended data are drawn.
+	 * If the y bounds, the scale or the size change, everything is drawn again.
+	 * Useful for strip charts with a manual y axis.
+	 * Note: the style of the series is not checked, call {@link #invalidateSeriesLayer()} after changing it.
+	 * @param scrollShift
+	 */
+	synchronized public void setScrollShift(boolean scrollShift) {
+		this.scrollShift = scrollShift;
+		// the layer may be drawn right now, it is freed by the next frame
+		invalidateSeriesLayer();
+	}
+
+	/**
+	 * if enabled, grid, series and legend are drawn on a SurfaceView by a dedicated render thread
+	 * instead of the UI thread. The UI thread only handles gestures and requests frames.
+	 * The render thread holds the lock of this GraphView only while it prepares a frame (redraw requests,
+	 * bounds, labels, grid) and while it draws the legend; the setters of the viewport, bounds and labels
+	 * take the lock, too. The series are drawn without the lock, so gestures and the vertical labels
+	 * are not blocked by heavy series.
+	 * Data can be appended from any thread, see {@link GraphViewSeries#appendData(double, double, boolean)}.
+	 * {@link #drawSeries(Canvas, GraphViewSeries, int, int, float, float, float, double, double, double, double, float, GraphViewSeriesStyle)},
+	 * {@link #drawHorizontalLabelsLines(Canvas, float, float, float, float)} and the {@link IDrawGraph} hooks are called on the render thread.
+	 * The surface is opaque, see {@link #setSurfaceBackgroundColor(int)}.
+	 * @param renderOnSurface
+	 */
+	public void setRenderOnSurface(boolean renderOnSurface) {
+		if (renderOnSurface == (surfaceView != null)) {
+			return;
+		}
+		if (renderOnSurface) {
+			surfaceView = new GraphSurfaceView(getContext(), this);
+			removeView(graphViewContentView);
+			addView(surfaceView, new LayoutParams(LayoutParams.FILL_PARENT, LayoutParams.FILL_PARENT, 1));
+		} else {
+			removeView(surfaceView);
+			surfaceView = null;
+			addView(graphViewContentView, new LayoutParams(LayoutParams.FILL_PARENT, LayoutParams.FILL_PARENT, 1));
+		}
+	}
+
+	/**
+	 * @param color background of the surface, see {@link #setRenderOnSurface(boolean)}. Default is black.
+	 */
+	public void setSurfaceBackgroundColor(int color) {
+		surfaceBackgroundColor = color;
+		invalidateContent();
+	}
+
+	int getSurfaceBackgroundColor() {
+		return surfaceBackgroundColor;
 	}
 
 	public void setLegendAlign(LegendAlign legendAlign) {
@@ -658,8 +1611,9 @@ abstract public class GraphView extends LinearLayout {
 	 * if you want to disable the menual y axis, call this method with false.
 	 * @param manualYAxis
 	 */
-	public void setManualYAxis(boolean manualYAxis) {
+	synchronized public void setManualYAxis(boolean manualYAxis) {
 		this.manualYAxis = manualYAxis;
+		invalidateBounds();
 	}
 
 	/**
@@ -667,10 +1621,11 @@ abstract public class GraphView extends LinearLayout {
 	 * @param max
 	 * @param min
 	 */
-	public void setManualYAxisBounds(double max, double min) {
+	synchronized public void setManualYAxisBounds(double max, double min) {
 		manualMaxYValue = max;
 		manualMinYValue = min;
 		manualYAxis = true;
+		invalidateBounds();
 	}
 
 	/**
@@ -684,30 +1639,38 @@ abstract public class GraphView extends LinearLayout {
 			scaleDetector = new ScaleGestureDetector(getContext(), new ScaleGestureDetector.SimpleOnScaleGestureListener() {
 				@Override
 				public boolean onScale(ScaleGestureDetector detector) {
-					double center = viewportStart + viewportSize / 2;
-					viewportSize /= detector.getScaleFactor();
-					viewportStart = center - viewportSize / 2;
-
-					// viewportStart must not be < minX
-					double minX = getMinX(true);
-					if (viewportStart < minX) {
-						viewportStart = minX;
-					}
-
-					// viewportStart + viewportSize must not be > maxX
-					double maxX = getMaxX(true);
-					double overlap = viewportStart + viewportSize - maxX;
-					if (overlap > 0) {
-						// scroll left
-						if (viewportStart-overlap > minX) {
-							viewportStart -= overlap;
-						} else {
-							// maximal scale
-							viewportStart = minX;
-							viewportSize = maxX - viewportStart;
+					synchronized (GraphView.this) {
+						double center = viewportStart + viewportSize / 2;
+						viewportSize /= detector.getScaleFactor();
+						viewportStart = center - viewportSize / 2;
+
+						// minX and maxX of the same data
+						beginRead();
+						try {
+							// viewportStart must not be < minX
+							double minX = getMinX(true);
+							if (viewportStart < minX) {
+								viewportStart = minX;
+							}
+
+							// viewportStart + viewportSize must not be > maxX
+							double maxX = getMaxX(true);
+							double overlap = viewportStart + viewportSize - maxX;
+							if (overlap > 0) {
+								// scroll left
+								if (viewportStart-overlap > minX) {
+									viewportStart -= overlap;
+								} else {
+									// maximal scale
+									viewportStart = minX;
+									viewportSize = maxX - viewportStart;
+								}
+							}
+						} finally {
+							endRead();
 						}
+						redraw(DIRTY_VIEWPORT);
 					}
-					redrawAll();
 					return true;
 				}
 			});
@@ -718,7 +1681,7 @@ abstract public class GraphView extends LinearLayout {
 	 * the user can scroll (horizontal) the graph. This is only useful if you use a viewport {@link #setViewPort(double, double)} which doesn't displays all data.
 	 * @param scrollable
 	 */
-	public void setScrollable(boolean scrollable) {
+	synchronized public void setScrollable(boolean scrollable) {
 		this.scrollable = scrollable;
 	}
 
@@ -726,16 +1689,19 @@ abstract public class GraphView extends LinearLayout {
 		this.showLegend = showLegend;
 	}
 
-	public void setTitle(String title) {
+	synchronized public void setTitle(String title) {
       this.title = title;
+      invalidateStaticLayer();
     }
 
 	/**
 	 * set's static vertical labels (from top to bottom)
 	 * @param verlabels if null, labels were generated automatically
 	 */
-	public void setVerticalLabels(String[] verlabels) {
+	synchronized public void setVerticalLabels(String[] verlabels) {
 		this.verlabels = verlabels;
+		generatedVerlabels.valid = false;
+		invalidateStaticLayer();
 	}
 
 	/**
@@ -743,9 +1709,10 @@ abstract public class GraphView extends LinearLayout {
 	 * @param start x-value
 	 * @param size
 	 */
-	public void setViewPort(double start, double size) {
+	synchronized public void setViewPort(double start, double size) {
 		viewportStart = start;
 		viewportSize = size;
+		invalidateBounds();
 	}
 
 	/**
@@ -0,0 +1,143 @@
+package com.jjoe64.graphview;
+
+/**
+ * generated labels of one axis.
+ * The characters of every label are kept in reused buffers and drawn with
+ * {@link android.graphics.Canvas#drawText(char[], int, int, float, float, android.graphics.Paint)},
+ * a label is only formatted again if its value changed.
+ */
+final class GraphViewLabels {
+	char[][] chars = new char[0][];
+	int[] lengths = new int[0];
+	double[] values = new double[0];
+	private boolean[] formatted = new boolean[0];
+	int count;
+	/**
+	 * false => the labels have to be generated
+	 */
+	boolean valid;
+	/**
+	 * true => the labels are placed by their values within [min, max] (nice ticks),
+	 * false => the labels are evenly spaced
+	 */
+	boolean placedByValue;
+	double min;
+	double max;
+	// bounds and size the labels were generated for
+	private double generatedMin = Double.NaN;
+	private double generatedMax = Double.NaN;
+	private float generatedSize;
+
+	/**
+	 * sets the number of labels, existing labels are kept
+	 */
+	void setCount(int count) {
+		if (chars.length < count) {
+			char[][] newChars = new char[count][];
+			int[] newLengths = new int[count];
+			double[] newValues = new double[count];
+			boolean[] newFormatted = new boolean[count];
+			System.arraycopy(chars, 0, newChars, 0, chars.length);
+			System.arraycopy(lengths, 0, newLengths, 0, lengths.length);
+			System.arraycopy(values, 0, newValues, 0, values.length);
+			System.arraycopy(formatted, 0, newFormatted, 0, formatted.length);
+			for (int i = chars.length; i < count; i++) {
+				newChars[i] = new char[FastNumberFormat.MAX_LENGTH];
+			}
+			chars = newChars;
+			lengths = newLengths;
+			values = newValues;
+			formatted = newFormatted;
+		}
+		this.count = count;
+	}
+
+	/**
+	 * marks the labels as valid for the bounds of the axis and the size of the graph
+	 */
+	void setGenerated(double min, double max, float size) {
+		generatedMin = min;
+		generatedMax = max;
+		generatedSize = size;
+		valid = true;
+	}
+
+	/**
+	 * @return true, if the labels are valid and were generated for the same bounds and size,
+	 * then they don't have to be generated again
+	 */
+	boolean isGenerated(double min, double max, float size) {
+		return valid && generatedMin == min && generatedMax == max && generatedSize == size;
+	}
+
+	/**
+	 * @return true, if label i has to be formatted for the value
+	 */
+	boolean needsFormat(int i, double value) {
+		return !formatted[i] || values[i] != value;
+	}
+
+	/**
+	 * marks label i as formatted, after its chars and length were set
+	 */
+	void setFormatted(int i, double value, int length) {
+		values[i] = value;
+		lengths[i] = length;
+		formatted[i] = true;
+	}
+
+	/**
+	 * sets label i to a string
+	 */
+	void set(int i, double value, String label) {
+		int length = label.length();
+		if (chars[i].length < length) {
+			chars[i] = new char[length];
+		}
+		label.getChars(0, length, chars[i], 0);
+		setFormatted(i, value, length);
+	}
+
+	/**
+	 * moves the already formatted label with the value to slot i, if there is one.
+	 * Only slots >= i are searched, the slots after count act as a cache of recently used labels.
+	 * @return true, if slot i holds the formatted label afterwards
+	 */
+	boolean reuse(int i, double value) {
+		if (!needsFormat(i, value)) {
+			return true;
+		}
+		for (int k = i + 1; k < chars.length; k++) {
+			if (formatted[k] && values[k] == value) {
+				swap(i, k);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void swap(int a, int b) {
+		char[] c = chars[a];
+		chars[a] = chars[b];
+		chars[b] = c;
+		int l = lengths[a];
+		lengths[a] = lengths[b];
+		lengths[b] = l;
+		double v = values[a];
+		values[a] = values[b];
+		values[b] = v;
+		boolean f = formatted[a];
+		formatted[a] = formatted[b];
+		formatted[b] = f;
+	}
+
+	/**
+	 * all labels have to be formatted again, e.g. because the formatting changed
+	 */
+	void clear() {
+		for (int i = 0; i < formatted.length; i++) {
+			formatted[i] = false;
+		}
+		valid = false;
+	}
+}
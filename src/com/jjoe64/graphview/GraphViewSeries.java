@@ -1,7 +1,8 @@
 package com.jjoe64.graphview;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.jjoe64.graphview.GraphView.GraphViewData;
 
@@ -10,9 +11,29 @@ public class GraphViewSeries {
 	 * graph series style: color and thickness
 	 */
 	static public class GraphViewSeriesStyle {
+		/**
+		 * how a series with more data than pixels is reduced before drawing
+		 */
+		public enum Downsampling {
+			/**
+			 * draw all data
+			 */
+			NONE,
+			/**
+			 * Largest-Triangle-Three-Buckets: keeps about 2 data per pixel, preserving the shape of the line
+			 */
+			LTTB,
+			/**
+			 * keeps the first, last, minimal and maximal data of every pixel column.
+			 * the line looks exactly like with all data, but at most 4 data per pixel are drawn
+			 */
+			M4
+		}
+
 		public int color = 0xff0077cc;
 		public int thickness = 3;
 		private ValueDependentColor valueDependentColor;
+		private Downsampling downsampling = Downsampling.NONE;
 
 		public GraphViewSeriesStyle() {
 			super();
@@ -28,17 +49,137 @@ public class GraphViewSeries {
 		public void setValueDependentColor(ValueDependentColor valueDependentColor) {
 			this.valueDependentColor = valueDependentColor;
 		}
+		public Downsampling getDownsampling() {
+			return downsampling;
+		}
+		/**
+		 * used by {@link LineGraphView}
+		 * @param downsampling if null, NONE is used
+		 */
+		public void setDownsampling(Downsampling downsampling) {
+			this.downsampling = downsampling == null ? Downsampling.NONE : downsampling;
+		}
+	}
+
+	/**
+	 * published state of the data, as copied by one reader, see {@link GraphViewSeries#publish()}.
+	 * The arrays are shared with the writer, but it only writes slots outside of
+	 * [head, head + size) of every published state, until it has written
+	 * (capacity - size) data, see {@link GraphViewSeries#endRead()}.
+	 */
+	private static final class Snapshot {
+		double[] valuesX;
+		double[] valuesY;
+		int head;
+		int size;
+		int modCount;
+		int resetCount;
+		RangeMinMax rangeY;
+		long writeCount;
+
+		int physicalIndex(int i) {
+			int p = head + i;
+			int capacity = valuesX.length;
+			return p >= capacity ? p - capacity : p;
+		}
 	}
 
+	/**
+	 * read state of one reader thread, see {@link GraphViewSeries#beginRead()}
+	 */
+	private static final class Reader {
+		final Thread thread = Thread.currentThread();
+		// pinned while depth > 0, else copied for every read
+		final Snapshot snapshot = new Snapshot();
+		int depth;
+	}
+
+	/**
+	 * when the data posted with {@link GraphViewSeries#postData(double, double, boolean)} is added to the series
+	 */
+	public enum DrainPolicy {
+		/**
+		 * the graph views draw a new frame, the data is added in one batch at the beginning of the frame
+		 */
+		NEXT_FRAME,
+		/**
+		 * the data is added when {@link GraphViewSeries#drainData(boolean)} is called
+		 */
+		MANUAL
+	}
+
+	private static final int MIN_CAPACITY = 16;
+	private static final int DEFAULT_INGEST_CAPACITY = 4096;
+	// late posted data is merged into at most this many of the newest data, see drainIngest
+	private static final int REORDER_WINDOW = 256;
+
 	final String description;
 	final GraphViewSeriesStyle style;
-	GraphViewData[] values;
-	private final List<GraphView> graphViews = new ArrayList<GraphView>();
+
+	// writer state, guarded by this.
+	/**
+	 * columnar storage: x and y values in parallel arrays, used as ring buffer.
+	 * the data with index i is stored at (head + i) % capacity,
+	 * only <code>size</code> entries are valid, the array length is the capacity.
+	 */
+	private double[] valuesX;
+	private double[] valuesY;
+	private int head;
+	private int size;
+	// incremented on every modification of the data
+	private int modCount;
+	// incremented if the data was replaced, not only appended or removed
+	private int resetCount;
+	// number of data written into the arrays
+	private long writeCount;
+	// min/max summary of valuesY, created with the arrays and updated when appending
+	private RangeMinMax rangeY;
+
+	// published state: written by publish, copied by the readers. odd sequence while writing
+	private volatile int publishSeq;
+	private volatile double[] publishedX;
+	private volatile double[] publishedY;
+	private volatile int publishedHead;
+	private volatile int publishedSize;
+	private volatile int publishedModCount;
+	private volatile int publishedResetCount;
+	private volatile RangeMinMax publishedRangeY;
+	private volatile long publishedWriteCount;
+
+	// reader state: the read methods use the snapshot pinned by the current thread while reading, else a copy of the published one
+	private final ThreadLocal<Reader> readers = new ThreadLocal<Reader>() {
+		@Override
+		protected Reader initialValue() {
+			return new Reader();
+		}
+	};
+	// reader of the last beginRead, checked before the thread local
+	private Reader lastReader;
+
+	// data posted by producers, created on demand
+	private volatile IngestQueue ingest;
+	private int ingestCapacity = DEFAULT_INGEST_CAPACITY;
+	private volatile DrainPolicy drainPolicy = DrainPolicy.NEXT_FRAME;
+	// true => the graph views were asked to drain, until the next frame
+	private final AtomicBoolean drainRequested = new AtomicBoolean();
+	// true => posted data wants to scroll to the end
+	private final AtomicBoolean ingestScrollToEnd = new AtomicBoolean();
+	// drained data, sorted before appending. guarded by this
+	private double[] batchX = new double[0];
+	private double[] batchY = new double[0];
+	// newest data merged with late drained data. guarded by this
+	private double[] mergeX = new double[0];
+	private double[] mergeY = new double[0];
+	private long droppedCount;
+	private volatile boolean multiResolution;
+	// retention, 0 = unlimited
+	private int maxPoints;
+	private double maxXSpan;
+	// producers of posted data iterate it
+	private final List<GraphView> graphViews = new CopyOnWriteArrayList<GraphView>();
 
 	public GraphViewSeries(GraphViewData[] values) {
-		description = null;
-		style = new GraphViewSeriesStyle();
-		this.values = values;
+		this(null, null, values);
 	}
 
 	public GraphViewSeries(String description, GraphViewSeriesStyle style, GraphViewData[] values) {
@@ -48,7 +189,25 @@ public class GraphViewSeries {
 			style = new GraphViewSeriesStyle();
 		}
 		this.style = style;
-		this.values = values;
+		setValues(values);
+	}
+
+	/**
+	 * creates a series directly from x and y values.
+	 * the arrays are used as they are (not copied) and must be sorted by x.
+	 * @param description [optional]
+	 * @param style [optional]
+	 * @param valuesX x values
+	 * @param valuesY y values, same length as valuesX
+	 */
+	public GraphViewSeries(String description, GraphViewSeriesStyle style, double[] valuesX, double[] valuesY) {
+		super();
+		this.description = description;
+		if (style == null) {
+			style = new GraphViewSeriesStyle();
+		}
+		this.style = style;
+		setValues(valuesX, valuesY);
 	}
 
 	/**
@@ -65,17 +224,787 @@ public class GraphViewSeries {
 	 * @param scrollToEnd true => graphview will scroll to the end (maxX)
 	 */
 	public void appendData(GraphViewData value, boolean scrollToEnd) {
-		GraphViewData[] newValues = new GraphViewData[values.length + 1];
-		int offset = values.length;
-		System.arraycopy(values, 0, newValues, 0, offset);
+		appendData(value.valueX, value.valueY, scrollToEnd);
+	}
 
-		newValues[values.length] = value;
-		values = newValues;
-		for (GraphView g : graphViews) {
+	/**
+	 * add one data to current data.
+	 * Data can be added from any thread: the graph reads a published snapshot of the data
+	 * without locking, appending never waits for drawing. The graphview(s) only record
+	 * the redraw request and apply it at the beginning of their next frame.
+	 * @param valueX x value of the new data, must be >= the last x value
+	 * @param valueY y value of the new data
+	 * @param scrollToEnd true => graphview will scroll to the end (maxX)
+	 */
+	public void appendData(double valueX, double valueY, boolean scrollToEnd) {
+		synchronized (this) {
+			append(valueX, valueY);
+			modCount++;
+			publish();
+		}
+		if (scrollToEnd) {
+			redraw(true);
+		}
+	}
+
+	/**
+	 * add many data to current data at once: the data is copied once,
+	 * and the graphview(s) are redrawn once.
+	 * @param valuesX x values of the new data, sorted, the first must be >= the last x value
+	 * @param valuesY y values of the new data
+	 * @param offset index of the first new data in the arrays
+	 * @param length number of new data
+	 * @param scrollToEnd true => graphview will scroll to the end (maxX)
+	 */
+	public void appendData(double[] valuesX, double[] valuesY, int offset, int length, boolean scrollToEnd) {
+		if (offset < 0 || length < 0 || offset + length > valuesX.length || offset + length > valuesY.length) {
+			throw new IndexOutOfBoundsException("offset " + offset + ", length " + length);
+		}
+		synchronized (this) {
+			appendBatch(valuesX, valuesY, offset, length);
+		}
+		if (length > 0) {
+			redraw(scrollToEnd);
+		}
+	}
+
+	/**
+	 * add many data to current data at once, see {@link #appendData(double[], double[], int, int, boolean)}
+	 * @param values the new data, sorted by x
+	 * @param scrollToEnd true => graphview will scroll to the end (maxX)
+	 */
+	public void appendData(GraphViewData[] values, boolean scrollToEnd) {
+		synchronized (this) {
+			ensureBatchCapacity(values.length);
+			for (int i=0; i<values.length; i++) {
+				batchX[i] = values[i].valueX;
+				batchY[i] = values[i].valueY;
+			}
+			appendBatch(batchX, batchY, 0, values.length);
+		}
+		if (values.length > 0) {
+			redraw(scrollToEnd);
+		}
+	}
+
+	/**
+	 * redraws the graphview(s) after the data was published, from any thread.
+	 * The views only record the request, the viewport and the labels are changed in their next frame.
+	 * @param scrollToEnd true => graphview will scroll to the end (maxX)
+	 */
+	private void redraw(boolean scrollToEnd) {
+		for (int i=0; i<graphViews.size(); i++) {
 			if (scrollToEnd) {
-				g.scrollToEnd();
+				graphViews.get(i).scrollToEnd();
+			} else {
+				graphViews.get(i).redraw(GraphView.DIRTY_DATA);
+			}
+		}
+	}
+
+	/**
+	 * writer side, appends many data with at most two array copies and publishes them
+	 */
+	private void appendBatch(double[] newValuesX, double[] newValuesY, int offset, int length) {
+		if (length == 0) {
+			return;
+		}
+		if (maxPoints > 0 && length > maxPoints) {
+			// only the newest data is kept
+			offset += length - maxPoints;
+			length = maxPoints;
+		}
+		ensureCapacity(size + length);
+		int capacity = valuesX.length;
+		if (size + length > capacity) {
+			// ring buffer: the new data replaces the oldest
+			removeOldest(capacity - length);
+		}
+		int p = physicalIndex(size);
+		int firstPart = Math.min(length, capacity - p);
+		System.arraycopy(newValuesX, offset, valuesX, p, firstPart);
+		System.arraycopy(newValuesY, offset, valuesY, p, firstPart);
+		if (firstPart < length) {
+			// wrapped
+			System.arraycopy(newValuesX, offset + firstPart, valuesX, 0, length - firstPart);
+			System.arraycopy(newValuesY, offset + firstPart, valuesY, 0, length - firstPart);
+		}
+		rangeY.update(p, p + firstPart);
+		rangeY.update(0, length - firstPart);
+		writeCount += length;
+		size += length;
+		if (maxPoints > 0) {
+			removeOldest(maxPoints);
+		}
+		if (maxXSpan > 0) {
+			removeOlderThan(newValuesX[offset + length - 1] - maxXSpan);
+		}
+		modCount++;
+		publish();
+	}
+
+	private void ensureBatchCapacity(int length) {
+		if (batchX.length < length) {
+			batchX = new double[Math.max(length, MIN_CAPACITY)];
+			batchY = new double[batchX.length];
+		}
+	}
+
+	/**
+	 * writer side, appends without publishing
+	 */
+	private void append(double valueX, double valueY) {
+		boolean full = maxPoints > 0 && size >= maxPoints;
+		if (size == valuesX.length) {
+			// grow geometrically, so that appending is amortized O(1)
+			ensureCapacity(size + 1);
+		}
+		// the slot after the data is free, it is not visible in the published snapshot
+		int p = physicalIndex(size);
+		valuesX[p] = valueX;
+		valuesY[p] = valueY;
+		writeCount++;
+		rangeY.update(p);
+		if (full) {
+			// ring buffer: the new data replaces the oldest
+			head = physicalIndex(1);
+		} else {
+			size++;
+		}
+		if (maxXSpan > 0) {
+			removeOlderThan(valueX - maxXSpan);
+		}
+	}
+
+	/**
+	 * queues one data, it is added later in one batch with the other queued data,
+	 * see {@link #setDrainPolicy(DrainPolicy)}.
+	 * Lock-free, for many producer threads; the graph is redrawn once per batch and not once per data.
+	 * Data that arrives late (x value lower than the last x value of the series when it is added)
+	 * is merged into the newest data; only data older than this reorder window is dropped,
+	 * see {@link #getDroppedCount()}.
+	 * @param valueX x value of the new data
+	 * @param valueY y value of the new data
+	 * @param scrollToEnd true => graphview will scroll to the end (maxX) when the data is added
+	 */
+	public void postData(double valueX, double valueY, boolean scrollToEnd) {
+		IngestQueue queue = getIngestQueue();
+		while (!queue.offer(valueX, valueY)) {
+			// full: the producer adds the queued data itself
+			synchronized (this) {
+				drainIngest();
+			}
+		}
+		if (scrollToEnd) {
+			ingestScrollToEnd.set(true);
+		}
+		if (drainPolicy == DrainPolicy.NEXT_FRAME && drainRequested.compareAndSet(false, true)) {
+			for (int i=0; i<graphViews.size(); i++) {
+				graphViews.get(i).requestDrain();
+			}
+		}
+	}
+
+	private IngestQueue getIngestQueue() {
+		IngestQueue queue = ingest;
+		if (queue == null) {
+			synchronized (this) {
+				queue = ingest;
+				if (queue == null) {
+					queue = new IngestQueue(ingestCapacity);
+					ingest = queue;
+				}
+			}
+		}
+		return queue;
+	}
+
+	/**
+	 * adds the queued data to the series. the data is sorted by x, one batch is published at once.
+	 * writer side, has to be called with the lock
+	 * @return number of data that was added
+	 */
+	private int drainIngest() {
+		IngestQueue queue = ingest;
+		if (queue == null) {
+			return 0;
+		}
+		int n = 0;
+		while (queue.poll()) {
+			if (n == batchX.length) {
+				int newLength = Math.max(batchX.length * 2, MIN_CAPACITY);
+				double[] newBatchX = new double[newLength];
+				double[] newBatchY = new double[newLength];
+				System.arraycopy(batchX, 0, newBatchX, 0, n);
+				System.arraycopy(batchY, 0, newBatchY, 0, n);
+				batchX = newBatchX;
+				batchY = newBatchY;
+			}
+			// insertion sort, the data of several producers is almost sorted
+			double x = queue.getPolledX();
+			double y = queue.getPolledY();
+			int k = n;
+			while (k > 0 && batchX[k - 1] > x) {
+				batchX[k] = batchX[k - 1];
+				batchY[k] = batchY[k - 1];
+				k--;
+			}
+			batchX[k] = x;
+			batchY[k] = y;
+			n++;
+		}
+		// the batch is sorted, only its beginning can be older than the series
+		if (n == 0 || size == 0 || batchX[0] >= valuesX[physicalIndex(size - 1)]) {
+			appendBatch(batchX, batchY, 0, n);
+			return n;
+		}
+		// late data: the newest data that is newer than the oldest late data is merged with the batch
+		int tail = 0;
+		while (tail < size && tail < REORDER_WINDOW && valuesX[physicalIndex(size - 1 - tail)] > batchX[0]) {
+			tail++;
+		}
+		int first = 0;
+		if (tail < size) {
+			// older than the reorder window
+			double keptX = valuesX[physicalIndex(size - 1 - tail)];
+			while (first < n && batchX[first] < keptX) {
+				first++;
+			}
+		}
+		droppedCount += first;
+		if (first < n && batchX[first] < valuesX[physicalIndex(size - 1)]) {
+			mergeTail(tail, first, n);
+		} else {
+			appendBatch(batchX, batchY, first, n - first);
+		}
+		return n - first;
+	}
+
+	/**
+	 * replaces the newest data of the series with its merge with the sorted batch [from, to).
+	 * writer side, has to be called with the lock
+	 * @param tail number of the newest data that is merged
+	 */
+	private void mergeTail(int tail, int from, int to) {
+		int length = tail + to - from;
+		if (mergeX.length < length) {
+			mergeX = new double[Math.max(Math.max(length, 2 * mergeX.length), MIN_CAPACITY)];
+			mergeY = new double[mergeX.length];
+		}
+		int i = size - tail;
+		int b = from;
+		int k = 0;
+		while (k < length) {
+			if (b == to || (i < size && valuesX[physicalIndex(i)] <= batchX[b])) {
+				int p = physicalIndex(i++);
+				mergeX[k] = valuesX[p];
+				mergeY[k++] = valuesY[p];
+			} else {
+				mergeX[k] = batchX[b];
+				mergeY[k++] = batchY[b++];
+			}
+		}
+		size -= tail;
+		// the replaced slots are part of published snapshots: their readers have to read again,
+		// see endRead, and drawings of the series that are cached by x have to start over
+		writeCount += valuesX.length;
+		resetCount++;
+		appendBatch(mergeX, mergeY, 0, length);
+	}
+
+	/**
+	 * adds the data queued with {@link #postData(double, double, boolean)} to the series and redraws the graphview(s).
+	 * For {@link DrainPolicy#MANUAL}, can be called from any thread.
+	 * @param scrollToEnd true => graphview will scroll to the end (maxX)
+	 * @return number of data that was added
+	 */
+	public int drainData(boolean scrollToEnd) {
+		int added;
+		synchronized (this) {
+			added = drainIngest();
+		}
+		scrollToEnd |= ingestScrollToEnd.getAndSet(false);
+		if (added > 0 || scrollToEnd) {
+			redraw(scrollToEnd);
+		}
+		return added;
+	}
+
+	/**
+	 * called by a graph view at the beginning of a frame, with {@link DrainPolicy#NEXT_FRAME}.
+	 * The other graph views of the series are asked to redraw.
+	 * @param drawing the graph view that drains, it applies the returned flags itself
+	 * @return the redraw flags for the drawing view (DIRTY_DATA, DIRTY_SCROLL_TO_END), 0 if nothing was drained
+	 */
+	int drainForFrame(GraphView drawing) {
+		if (!drainRequested.getAndSet(false)) {
+			return 0;
+		}
+		// data added by producers because the queue was full is already published
+		synchronized (this) {
+			drainIngest();
+		}
+		int flags = GraphView.DIRTY_DATA;
+		if (ingestScrollToEnd.getAndSet(false)) {
+			flags |= GraphView.DIRTY_SCROLL_TO_END;
+		}
+		for (int i=0; i<graphViews.size(); i++) {
+			GraphView g = graphViews.get(i);
+			if (g != drawing) {
+				g.redraw(flags);
+			}
+		}
+		return flags;
+	}
+
+	public DrainPolicy getDrainPolicy() {
+		return drainPolicy;
+	}
+
+	/**
+	 * @param drainPolicy when the data posted with {@link #postData(double, double, boolean)} is added, default is NEXT_FRAME
+	 */
+	public void setDrainPolicy(DrainPolicy drainPolicy) {
+		this.drainPolicy = drainPolicy == null ? DrainPolicy.NEXT_FRAME : drainPolicy;
+	}
+
+	/**
+	 * @param ingestCapacity number of data that can be queued with {@link #postData(double, double, boolean)} before
+	 * a producer has to add it itself. Has to be set before the first data is posted.
+	 */
+	public synchronized void setIngestCapacity(int ingestCapacity) {
+		if (ingestCapacity <= 0) {
+			throw new IllegalArgumentException("ingestCapacity must be positive");
+		}
+		this.ingestCapacity = ingestCapacity;
+	}
+
+	/**
+	 * @return number of posted data that was dropped because it was older than the reorder window of the newest data
+	 */
+	public synchronized long getDroppedCount() {
+		return droppedCount;
+	}
+
+	/**
+	 * makes sure that the series can hold at least minCapacity data
+	 * without reallocating its storage.
+	 * if the storage has to grow, it grows by at least 50%.
+	 * @param minCapacity
+	 */
+	public synchronized void ensureCapacity(int minCapacity) {
+		int capacity = valuesX.length;
+		int maxCapacity = getRingCapacity();
+		if (maxPoints > 0 && minCapacity > maxCapacity) {
+			minCapacity = Math.max(maxCapacity, size);
+		}
+		if (minCapacity <= capacity) {
+			return;
+		}
+		int newCapacity = Math.max(capacity + (capacity >> 1), MIN_CAPACITY);
+		if (maxPoints > 0 && newCapacity > maxCapacity) {
+			newCapacity = maxCapacity;
+		}
+		if (newCapacity < minCapacity) {
+			newCapacity = minCapacity;
+		}
+		reallocate(newCapacity);
+		publish();
+	}
+
+	/**
+	 * @return capacity of the ring buffer with maxPoints: some free slots, so that appending
+	 * does not overwrite the data of a snapshot that is read at the same time
+	 */
+	private int getRingCapacity() {
+		return maxPoints + Math.max(MIN_CAPACITY, maxPoints >> 2);
+	}
+
+	/**
+	 * publishes the writer state, has to be called after every modification.
+	 * Allocation-free: the readers copy the published fields, see {@link #copyPublished(Snapshot)}
+	 */
+	private void publish() {
+		// only one writer, with the lock
+		publishSeq++;
+		publishedX = valuesX;
+		publishedY = valuesY;
+		publishedHead = head;
+		publishedSize = size;
+		publishedModCount = modCount;
+		publishedResetCount = resetCount;
+		publishedRangeY = rangeY;
+		publishedWriteCount = writeCount;
+		publishSeq++;
+	}
+
+	/**
+	 * copies the published state, it is consistent if no publish happened meanwhile
+	 */
+	private void copyPublished(Snapshot s) {
+		while (true) {
+			int seq = publishSeq;
+			if ((seq & 1) == 0) {
+				s.valuesX = publishedX;
+				s.valuesY = publishedY;
+				s.head = publishedHead;
+				s.size = publishedSize;
+				s.modCount = publishedModCount;
+				s.resetCount = publishedResetCount;
+				s.rangeY = publishedRangeY;
+				s.writeCount = publishedWriteCount;
+				if (seq == publishSeq) {
+					return;
+				}
 			}
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * copies the data into new arrays with the given capacity,
+	 * the data starts at index 0 afterwards.
+	 */
+	private void reallocate(int newCapacity) {
+		double[] newValuesX = new double[newCapacity];
+		double[] newValuesY = new double[newCapacity];
+		int capacity = valuesX.length;
+		int firstPart = Math.min(size, capacity - head);
+		System.arraycopy(valuesX, head, newValuesX, 0, firstPart);
+		System.arraycopy(valuesY, head, newValuesY, 0, firstPart);
+		if (firstPart < size) {
+			// wrapped
+			System.arraycopy(valuesX, 0, newValuesX, firstPart, size - firstPart);
+			System.arraycopy(valuesY, 0, newValuesY, firstPart, size - firstPart);
+		}
+		valuesX = newValuesX;
+		valuesY = newValuesY;
+		head = 0;
+		// the summary moves with the arrays, O(capacity) like the copy
+		rangeY = new RangeMinMax(newValuesY);
+	}
+
+	/**
+	 * writer side
+	 * @return physical array index of the data with index i
+	 */
+	private int physicalIndex(int i) {
+		int p = head + i;
+		int capacity = valuesX.length;
+		return p >= capacity ? p - capacity : p;
+	}
+
+	/**
+	 * pins the current data for reading: until {@link #endRead()} all read methods
+	 * ({@link #size()}, {@link #getX(int)}, ...) see the same, consistent data,
+	 * while other threads append without waiting.
+	 * Calls can be nested; every thread pins its own snapshot, so several graph views
+	 * can read the series at the same time.
+	 */
+	void beginRead() {
+		Reader r = reader();
+		if (r.depth++ == 0) {
+			copyPublished(r.snapshot);
+		}
+		lastReader = r;
+	}
+
+	/**
+	 * @return false, if data that was read since {@link #beginRead()} may have been overwritten
+	 * meanwhile (ring buffer appended more than its free slots), then it should be read again
+	 */
+	boolean endRead() {
+		Reader r = reader();
+		r.depth--;
+		Snapshot s = r.snapshot;
+		// the write count is read after the arrays, so it is never lower than the writes into them
+		double[] currentX = publishedX;
+		long currentWriteCount = publishedWriteCount;
+		if (currentX != s.valuesX) {
+			// the pinned arrays are not written anymore after reallocating (they were full)
+			return true;
+		}
+		return currentWriteCount - s.writeCount <= s.valuesX.length - s.size;
+	}
+
+	/**
+	 * @return the snapshot the read methods use
+	 */
+	private Snapshot read() {
+		Reader r = reader();
+		if (r.depth == 0) {
+			copyPublished(r.snapshot);
 		}
+		return r.snapshot;
+	}
+
+	/**
+	 * @return the read state of the current thread
+	 */
+	private Reader reader() {
+		// the thread of a reader never changes, a stale lastReader of another thread is not used
+		Reader r = lastReader;
+		if (r == null || r.thread != Thread.currentThread()) {
+			r = readers.get();
+		}
+		return r;
+	}
+
+	/**
+	 * reader side
+	 * @return physical array index of the data with index i
+	 */
+	int readIndex(int i) {
+		return read().physicalIndex(i);
+	}
+
+	/**
+	 * reader side
+	 * @return index of the data at physical array index p
+	 */
+	int logicalIndex(int p) {
+		Snapshot s = read();
+		int i = p - s.head;
+		return i < 0 ? i + s.valuesX.length : i;
+	}
+
+	/**
+	 * reader side
+	 * @return the array of the y values, see {@link #readIndex(int)}
+	 */
+	double[] getValuesY() {
+		return read().valuesY;
+	}
+
+	/**
+	 * reader side
+	 * @return incremented on every modification of the data
+	 */
+	int getModCount() {
+		return read().modCount;
+	}
+
+	/**
+	 * reader side
+	 * @return incremented if the data was replaced, not only appended or removed
+	 */
+	int getResetCount() {
+		return read().resetCount;
+	}
+
+	/**
+	 * reader side
+	 * @return min/max summary of the y values of the same snapshot as {@link #getValuesY()}
+	 */
+	RangeMinMax getRangeY() {
+		return read().rangeY;
+	}
+
+	/**
+	 * removes the oldest data, until the series holds at most maxSize data
+	 */
+	private void removeOldest(int maxSize) {
+		if (size > maxSize) {
+			modCount++;
+			head = physicalIndex(size - maxSize);
+			size = maxSize;
+		}
+		if (size == 0) {
+			head = 0;
+		}
+	}
+
+	/**
+	 * removes the data with x values lower than minX
+	 */
+	private void removeOlderThan(double minX) {
+		int n = 0;
+		while (n < size && valuesX[physicalIndex(n)] < minX) {
+			n++;
+		}
+		removeOldest(size - n);
+	}
+
+	/**
+	 * @return the maximal number of data that is kept, 0 = unlimited
+	 */
+	public int getMaxPoints() {
+		return maxPoints;
+	}
+
+	/**
+	 * limits the number of data in this series.
+	 * the series becomes a ring buffer with a fixed capacity (maxPoints and some free slots), when appending
+	 * the new data replaces the oldest data without copying.
+	 * Data that exceeds the limit is removed (oldest first).
+	 * @param maxPoints maximal number of data, 0 = unlimited
+	 */
+	public synchronized void setMaxPoints(int maxPoints) {
+		if (maxPoints < 0) {
+			throw new IllegalArgumentException("maxPoints must not be negative");
+		}
+		this.maxPoints = maxPoints;
+		if (maxPoints > 0) {
+			removeOldest(maxPoints);
+			reallocate(getRingCapacity());
+		}
+		publish();
+	}
+
+	public boolean isMultiResolution() {
+		return multiResolution;
+	}
+
+	/**
+	 * if enabled, {@link LineGraphView} draws from the mipmap of min/max summaries with power-of-two bucket sizes,
+	 * that the series maintains incrementally when appending.
+	 * If the visible data is much more than the graph width in pixels, {@link LineGraphView} draws
+	 * the coarsest level that still has at least one bucket per pixel,
+	 * so drawing takes time proportional to the width and not to the number of data.
+	 * The buckets are not aligned to the pixel columns: a series with {@link GraphViewSeriesStyle.Downsampling#M4}
+	 * keeps being drawn with M4, that is exact to the pixel.
+	 * @param multiResolution
+	 */
+	public void setMultiResolution(boolean multiResolution) {
+		this.multiResolution = multiResolution;
+	}
+
+	/**
+	 * @return the maximal x range that is kept, 0 = unlimited
+	 */
+	public double getMaxXSpan() {
+		return maxXSpan;
+	}
+
+	/**
+	 * limits the x range of the data in this series.
+	 * when appending, data with x values lower than (x value of the new data - maxXSpan) is removed.
+	 * can be combined with {@link #setMaxPoints(int)}.
+	 * @param maxXSpan maximal x range, 0 = unlimited
+	 */
+	public synchronized void setMaxXSpan(double maxXSpan) {
+		if (maxXSpan < 0) {
+			throw new IllegalArgumentException("maxXSpan must not be negative");
+		}
+		this.maxXSpan = maxXSpan;
+		if (maxXSpan > 0 && size > 0) {
+			removeOlderThan(valuesX[physicalIndex(size - 1)] - maxXSpan);
+		}
+		publish();
+	}
+
+	/**
+	 * @return the number of data the series can hold without reallocating its storage
+	 */
+	public int getCapacity() {
+		return read().valuesX.length;
+	}
+
+	/**
+	 * @return the number of data in this series
+	 */
+	public int size() {
+		return read().size;
+	}
+
+	/**
+	 * @param i index of the data, 0 <= i < size()
+	 * @return x value of the data at index i
+	 */
+	public double getX(int i) {
+		Snapshot s = read();
+		return s.valuesX[s.physicalIndex(i)];
+	}
+
+	/**
+	 * @param i index of the data, 0 <= i < size()
+	 * @return y value of the data at index i
+	 */
+	public double getY(int i) {
+		Snapshot s = read();
+		return s.valuesY[s.physicalIndex(i)];
+	}
+
+	/**
+	 * minimal y value of a range of data, O(log n).
+	 * @param start index of the first data
+	 * @param end index after the last data
+	 * @return the minimal y value, +infinity if the range is empty
+	 */
+	public double getMinY(int start, int end) {
+		if (start >= end) {
+			return Double.POSITIVE_INFINITY;
+		}
+		Snapshot s = read();
+		RangeMinMax rangeY = s.rangeY;
+		int from = s.physicalIndex(start);
+		int to = from + end - start;
+		int capacity = s.valuesY.length;
+		if (to <= capacity) {
+			return rangeY.getMin(from, to);
+		}
+		// wrapped
+		return Math.min(rangeY.getMin(from, capacity), rangeY.getMin(0, to - capacity));
+	}
+
+	/**
+	 * maximal y value of a range of data, O(log n).
+	 * @param start index of the first data
+	 * @param end index after the last data
+	 * @return the maximal y value, -infinity if the range is empty
+	 */
+	public double getMaxY(int start, int end) {
+		if (start >= end) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		Snapshot s = read();
+		RangeMinMax rangeY = s.rangeY;
+		int from = s.physicalIndex(start);
+		int to = from + end - start;
+		int capacity = s.valuesY.length;
+		if (to <= capacity) {
+			return rangeY.getMax(from, to);
+		}
+		// wrapped
+		return Math.max(rangeY.getMax(from, capacity), rangeY.getMax(0, to - capacity));
+	}
+
+	/**
+	 * binary search, data must be sorted by x.
+	 * @param valueX
+	 * @return index of the first data with x >= valueX, size() if there is none
+	 */
+	public int lowerBound(double valueX) {
+		int low = 0;
+		int high = size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (getX(mid) < valueX) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * binary search, data must be sorted by x.
+	 * @param valueX
+	 * @return index of the first data with x > valueX, size() if there is none
+	 */
+	public int upperBound(double valueX) {
+		int low = 0;
+		int high = size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (getX(mid) <= valueX) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
 	}
 
 	public void removeGraphView(GraphView graphView) {
@@ -88,9 +1017,53 @@ public class GraphViewSeries {
 	 * @param values new data
 	 */
 	public void resetData(GraphViewData[] values) {
-		this.values = values;
-		for (GraphView g : graphViews) {
-			g.redrawAll();
+		synchronized (this) {
+			setValues(values);
+		}
+		redraw(false);
+	}
+
+	/**
+	 * clears the current data and set the new.
+	 * the arrays are used as they are (not copied).
+	 * redraws the graphview(s)
+	 * @param valuesX new x values
+	 * @param valuesY new y values, same length as valuesX
+	 */
+	public void resetData(double[] valuesX, double[] valuesY) {
+		synchronized (this) {
+			setValues(valuesX, valuesY);
+		}
+		redraw(false);
+	}
+
+	private void setValues(GraphViewData[] values) {
+		double[] newValuesX = new double[values.length];
+		double[] newValuesY = new double[values.length];
+		for (int i=0; i<values.length; i++) {
+			newValuesX[i] = values[i].valueX;
+			newValuesY[i] = values[i].valueY;
+		}
+		setValues(newValuesX, newValuesY);
+	}
+
+	private void setValues(double[] valuesX, double[] valuesY) {
+		if (valuesX.length != valuesY.length) {
+			throw new IllegalArgumentException("valuesX and valuesY must have the same length");
+		}
+		this.valuesX = valuesX;
+		this.valuesY = valuesY;
+		head = 0;
+		rangeY = new RangeMinMax(valuesY);
+		size = valuesX.length;
+		modCount++;
+		resetCount++;
+		if (maxPoints > 0) {
+			removeOldest(maxPoints);
+		}
+		if (maxXSpan > 0 && size > 0) {
+			removeOlderThan(valuesX[physicalIndex(size - 1)] - maxXSpan);
 		}
+		publish();
 	}
 }
@@ -11,6 +11,8 @@ public class GraphViewStyle {
 	private int vLabelsColor;
 	private int hLabelsColor;
 	private int gridColor;
+	// incremented on every change, to invalidate cached drawings
+	private int version;
 
 	public GraphViewStyle() {
 		vLabelsColor = Color.WHITE;
@@ -24,6 +26,10 @@ public class GraphViewStyle {
 		this.gridColor = gridColor;
 	}
 
+	int getVersion() {
+		return version;
+	}
+
 	public int getVerticalLabelsColor() {
 		return vLabelsColor;
 	}
@@ -38,13 +44,16 @@ public class GraphViewStyle {
 
 	public void setVerticalLabelsColor(int c) {
 		vLabelsColor = c;
+		version++;
 	}
 
 	public void setHorizontalLabelsColor(int c) {
 		hLabelsColor = c;
+		version++;
 	}
 
 	public void setGridColor(int c) {
 		gridColor = c;
+		version++;
 	}
 }
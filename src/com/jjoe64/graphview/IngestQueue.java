@@ -0,0 +1,100 @@
+package com.jjoe64.graphview;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * bounded lock-free queue of (x, y) data, for many producers and one consumer.
+ * Every slot has a sequence number: a producer claims a position with compare-and-set
+ * and then publishes the slot by setting its sequence, the consumer only takes published slots
+ * (D. Vyukov, bounded MPMC queue).
+ * The values are stored in primitive arrays, offering does not allocate.
+ */
+final class IngestQueue {
+	private final int mask;
+	private final AtomicLongArray sequences;
+	private final double[] valuesX;
+	private final double[] valuesY;
+	// next position for producers
+	private final AtomicLong tail = new AtomicLong();
+	// next position for the consumer, only used by the consumer
+	private long head;
+	// data of the last poll
+	private double polledX;
+	private double polledY;
+
+	/**
+	 * @param capacity is rounded up to a power of two
+	 */
+	IngestQueue(int capacity) {
+		int n = 2;
+		while (n < capacity) {
+			n <<= 1;
+		}
+		mask = n - 1;
+		sequences = new AtomicLongArray(n);
+		for (int i = 0; i < n; i++) {
+			sequences.set(i, i);
+		}
+		valuesX = new double[n];
+		valuesY = new double[n];
+	}
+
+	int getCapacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * producer side, thread safe
+	 * @return false, if the queue is full
+	 */
+	boolean offer(double valueX, double valueY) {
+		long pos = tail.get();
+		while (true) {
+			int index = (int) pos & mask;
+			long diff = sequences.get(index) - pos;
+			if (diff == 0) {
+				// the slot is free for this position
+				if (tail.compareAndSet(pos, pos + 1)) {
+					valuesX[index] = valueX;
+					valuesY[index] = valueY;
+					sequences.set(index, pos + 1);
+					return true;
+				}
+				pos = tail.get();
+			} else if (diff < 0) {
+				// the slot still holds data of the last round
+				return false;
+			} else {
+				// another producer took the position
+				pos = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * consumer side, only one thread at a time.
+	 * takes the oldest data, see {@link #getPolledX()} and {@link #getPolledY()}
+	 * @return false, if there is no published data
+	 */
+	boolean poll() {
+		int index = (int) head & mask;
+		if (sequences.get(index) != head + 1) {
+			return false;
+		}
+		polledX = valuesX[index];
+		polledY = valuesY[index];
+		// free the slot for the next round
+		sequences.set(index, head + mask + 1);
+		head++;
+		return true;
+	}
+
+	double getPolledX() {
+		return polledX;
+	}
+
+	double getPolledY() {
+		return polledY;
+	}
+}
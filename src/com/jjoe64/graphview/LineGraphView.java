@@ -1,11 +1,16 @@
 package com.jjoe64.graphview;
 
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Paint;
+import android.graphics.Path;
 import android.util.AttributeSet;
 
 import com.jjoe64.graphview.GraphViewSeries.GraphViewSeriesStyle;
+import com.jjoe64.graphview.GraphViewSeries.GraphViewSeriesStyle.Downsampling;
 
 /**
  * Line Graph View. This draws a line chart.
@@ -17,15 +22,67 @@ import com.jjoe64.graphview.GraphViewSeries.GraphViewSeriesStyle;
  */
 //public class LineGraphView extends GraphView {
 public class LineGraphView extends FixLabelsGraphView {
+	/**
+	 * filled background of one series, it is rebuilt only if the visible data or the scale change
+	 */
+	private static class BackgroundPath {
+		final Path path = new Path();
+		private boolean valid;
+		private int modCount;
+		private int start;
+		private int end;
+		private double minX;
+		private double minY;
+		private double diffX;
+		private double diffY;
+		private float graphwidth;
+		private float graphheight;
+		private float border;
+		private float horstart;
+		private Downsampling downsampling;
+		private boolean multiResolution;
+
+		boolean isValid(GraphViewSeries series, int start, int end, double minX, double minY, double diffX, double diffY, float graphwidth, float graphheight, float border, float horstart) {
+			return valid && modCount == series.getModCount() && this.start == start && this.end == end
+					&& this.minX == minX && this.minY == minY && this.diffX == diffX && this.diffY == diffY
+					&& this.graphwidth == graphwidth && this.graphheight == graphheight
+					&& this.border == border && this.horstart == horstart
+					&& downsampling == series.style.getDownsampling() && multiResolution == series.isMultiResolution();
+		}
+
+		void set(GraphViewSeries series, int start, int end, double minX, double minY, double diffX, double diffY, float graphwidth, float graphheight, float border, float horstart) {
+			valid = true;
+			modCount = series.getModCount();
+			this.start = start;
+			this.end = end;
+			this.minX = minX;
+			this.minY = minY;
+			this.diffX = diffX;
+			this.diffY = diffY;
+			this.graphwidth = graphwidth;
+			this.graphheight = graphheight;
+			this.border = border;
+			this.horstart = horstart;
+			downsampling = series.style.getDownsampling();
+			multiResolution = series.isMultiResolution();
+		}
+	}
+
+	// 4 floats per line segment, the buffer grows up to MAX_LINES_BUFFER
+	private static final int MAX_LINES_BUFFER = 4 * 8192;
+
 	private final Paint paintBackground;
 	private boolean drawBackground;
+	private final Downsampler downsampler = new Downsampler();
+	private float[] lines = new float[0];
+	private final Map<GraphViewSeries, BackgroundPath> backgroundPaths = new WeakHashMap<GraphViewSeries, BackgroundPath>();
 
 	public LineGraphView(Context context, AttributeSet attrs) {
 		super(context, attrs);
 		
 		paintBackground = new Paint();
 		paintBackground.setARGB(255, 20, 40, 60);
-		paintBackground.setStrokeWidth(4);
+		paintBackground.setStyle(Paint.Style.FILL);
 	}
 	
 	public LineGraphView(Context context, String title) {
@@ -37,75 +94,101 @@ public class LineGraphView extends FixLabelsGraphView {
 
 		paintBackground = new Paint();
 		paintBackground.setARGB(255, 20, 40, 60);
-		paintBackground.setStrokeWidth(4);
+		paintBackground.setStyle(Paint.Style.FILL);
 	}
 
 	@Override
-	public void drawSeries(Canvas canvas, GraphViewData[] values, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, GraphViewSeriesStyle style) {
+	public void drawSeries(Canvas canvas, GraphViewSeries series, int start, int end, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, GraphViewSeriesStyle style) {
+		// downsampling: draw only the selected data
+		int count = end - start;
+		int[] indices = null;
+		if (style.getDownsampling() == Downsampling.M4) {
+			// pixel exact, the buckets of the mipmap are not aligned to the pixel columns
+			if (count > 4 * graphwidth) {
+				count = downsampler.m4(series, start, end, minX, diffX, graphwidth);
+				indices = downsampler.getIndices();
+			}
+		} else if (series.isMultiResolution() && count >= RangeMinMax.BLOCK_SIZE * graphwidth) {
+			count = downsampler.pyramid(series, start, end, graphwidth);
+			indices = downsampler.getIndices();
+		} else if (style.getDownsampling() == Downsampling.LTTB) {
+			int threshold = (int) (2 * graphwidth);
+			if (count > threshold && threshold >= 3) {
+				count = downsampler.lttb(series, start, end, threshold);
+				indices = downsampler.getIndices();
+			}
+		}
+
+		// screen x = (valueX - minX) * scaleX + offsetX, screen y = offsetY - (valueY - minY) * scaleY
+		double scaleX = graphwidth / diffX;
+		double scaleY = graphheight / diffY;
+		float offsetX = horstart + 1;
+		float offsetY = border + graphheight;
+
 		// draw background
-		double lastEndY = 0;
-		double lastEndX = 0;
-		if (drawBackground) {
-			float startY = graphheight + border;
-			for (int i = 0; i < values.length; i++) {
-				double valY = values[i].valueY - minY;
-				double ratY = valY / diffY;
-				double y = graphheight * ratY;
-
-				double valX = values[i].valueX - minX;
-				double ratX = valX / diffX;
-				double x = graphwidth * ratX;
-
-				float endX = (float) x + (horstart + 1);
-				float endY = (float) (border - y) + graphheight +2;
-
-				if (i > 0) {
-					// fill space between last and current point
-					double numSpace = ((endX - lastEndX) / 3f) +1;
-					for (int xi=0; xi<numSpace; xi++) {
-						float spaceX = (float) (lastEndX + ((endX-lastEndX)*xi/(numSpace-1)));
-						float spaceY = (float) (lastEndY + ((endY-lastEndY)*xi/(numSpace-1)));
-
-						// start => bottom edge
-						float startX = spaceX;
-
-						// do not draw over the left edge
-						if (startX-horstart > 1) {
-							canvas.drawLine(startX, startY, spaceX, spaceY, paintBackground);
-						}
-					}
+		if (drawBackground && count > 1) {
+			BackgroundPath background = backgroundPaths.get(series);
+			if (background == null) {
+				background = new BackgroundPath();
+				backgroundPaths.put(series, background);
+			}
+			if (!background.isValid(series, start, end, minX, minY, diffX, diffY, graphwidth, graphheight, border, horstart)) {
+				// outline: bottom edge, slightly below the data points, back to the bottom edge
+				Path path = background.path;
+				path.rewind();
+				int i = indices == null ? start : indices[0];
+				float x = (float) ((series.getX(i) - minX) * scaleX) + offsetX;
+				path.moveTo(x, offsetY);
+				for (int k = 0; k < count; k++) {
+					i = indices == null ? start + k : indices[k];
+					x = (float) ((series.getX(i) - minX) * scaleX) + offsetX;
+					float y = offsetY - (float) ((series.getY(i) - minY) * scaleY) + 2;
+					path.lineTo(x, y);
 				}
-
-				lastEndY = endY;
-				lastEndX = endX;
+				path.lineTo(x, offsetY);
+				path.close();
+				background.set(series, start, end, minX, minY, diffX, diffY, graphwidth, graphheight, border, horstart);
 			}
+			// do not draw over the left edge
+			canvas.save();
+			canvas.clipRect(offsetX, 0, offsetX + graphwidth, offsetY);
+			canvas.drawPath(background.path, paintBackground);
+			canvas.restore();
 		}
 
 		// draw data
 		paint.setStrokeWidth(style.thickness);
 		paint.setColor(style.color);
 
-		lastEndY = 0;
-		lastEndX = 0;
-		for (int i = 0; i < values.length; i++) {
-			double valY = values[i].valueY - minY;
-			double ratY = valY / diffY;
-			double y = graphheight * ratY;
-
-			double valX = values[i].valueX - minX;
-			double ratX = valX / diffX;
-			double x = graphwidth * ratX;
-
-			if (i > 0) {
-				float startX = (float) lastEndX + (horstart + 1);
-				float startY = (float) (border - lastEndY) + graphheight;
-				float endX = (float) x + (horstart + 1);
-				float endY = (float) (border - y) + graphheight;
-
-				canvas.drawLine(startX, startY, endX, endY, paint);
+		// the segments are collected in a reused buffer and drawn with as few drawLines calls as possible
+		int segments = count - 1;
+		if (segments > 0 && lines.length < 4 * segments && lines.length < MAX_LINES_BUFFER) {
+			// grow geometrically, so that a slowly rising number of segments does not allocate every frame
+			lines = new float[Math.min(Math.max(4 * segments, 2 * lines.length), MAX_LINES_BUFFER)];
+		}
+		float[] lines = this.lines;
+		int n = 0;
+		float lastX = 0;
+		float lastY = 0;
+		for (int k = 0; k < count; k++) {
+			int i = indices == null ? start + k : indices[k];
+			float x = (float) ((series.getX(i) - minX) * scaleX) + offsetX;
+			float y = offsetY - (float) ((series.getY(i) - minY) * scaleY);
+			if (k > 0) {
+				if (n == lines.length) {
+					canvas.drawLines(lines, 0, n, paint);
+					n = 0;
+				}
+				lines[n++] = lastX;
+				lines[n++] = lastY;
+				lines[n++] = x;
+				lines[n++] = y;
 			}
-			lastEndY = y;
-			lastEndX = x;
+			lastX = x;
+			lastY = y;
+		}
+		if (n > 0) {
+			canvas.drawLines(lines, 0, n, paint);
 		}
 	}
 
@@ -0,0 +1,210 @@
+package com.jjoe64.graphview;
+
+/**
+ * min/max summary of an array of values, used for fast autoscaling and multi-resolution drawing.
+ * The array slots are grouped in blocks of {@link #BLOCK_SIZE}, a segment tree
+ * over the blocks answers "min/max of the slots [from, to)" in O(log n).
+ * Changing one slot costs one block scan plus O(log n) tree updates.
+ *
+ * The tree stores the slot of the minimal and maximal value of every node.
+ * The nodes of one tree level form a mipmap: level k divides the array in buckets
+ * of (BLOCK_SIZE &lt;&lt; k) slots, see {@link #getMinSlot(int, int)}.
+ *
+ * The summary keeps a reference to the array; if the array is replaced,
+ * a new summary has to be created.
+ */
+final class RangeMinMax {
+	static final int BLOCK_SHIFT = 4;
+	static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+	private final double[] values;
+	// number of leaves, power of two. node 1 is the root, leaf of block b is node (leaves + b)
+	private final int leaves;
+	private final int levels;
+	// slot of the minimal/maximal value of every node, -1 for empty nodes
+	private final int[] min;
+	private final int[] max;
+
+	RangeMinMax(double[] values) {
+		this.values = values;
+		int blocks = (values.length + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+		int n = 1;
+		int l = 1;
+		while (n < blocks) {
+			n <<= 1;
+			l++;
+		}
+		leaves = n;
+		levels = l;
+		min = new int[2 * n];
+		max = new int[2 * n];
+		for (int b = 0; b < n; b++) {
+			if (b < blocks) {
+				updateLeaf(b);
+			} else {
+				min[n + b] = -1;
+				max[n + b] = -1;
+			}
+		}
+		for (int i = n - 1; i >= 1; i--) {
+			updateNode(i);
+		}
+	}
+
+	/**
+	 * has to be called after the value of a slot was changed
+	 * @param slot array index
+	 */
+	void update(int slot) {
+		int b = slot >> BLOCK_SHIFT;
+		updateLeaf(b);
+		for (int i = (leaves + b) >> 1; i >= 1; i >>= 1) {
+			updateNode(i);
+		}
+	}
+
+	/**
+	 * has to be called after the values of the slots [from, to) were changed.
+	 * every changed block is scanned once, and every tree node above them is updated once.
+	 */
+	void update(int from, int to) {
+		if (from >= to) {
+			return;
+		}
+		int first = from >> BLOCK_SHIFT;
+		int last = (to - 1) >> BLOCK_SHIFT;
+		for (int b = first; b <= last; b++) {
+			updateLeaf(b);
+		}
+		for (int l = (leaves + first) >> 1, r = (leaves + last) >> 1; l >= 1; l >>= 1, r >>= 1) {
+			for (int i = l; i <= r; i++) {
+				updateNode(i);
+			}
+		}
+	}
+
+	/**
+	 * @return minimal value of the slots [from, to), +infinity if the range is empty
+	 */
+	double getMin(int from, int to) {
+		double res = Double.POSITIVE_INFINITY;
+		int firstBlock = (from + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+		int lastBlock = to >> BLOCK_SHIFT;
+		if (firstBlock >= lastBlock) {
+			// less than one complete block
+			for (int i = from; i < to; i++) {
+				if (values[i] < res) res = values[i];
+			}
+			return res;
+		}
+		// incomplete blocks at the edges
+		for (int i = from; i < (firstBlock << BLOCK_SHIFT); i++) {
+			if (values[i] < res) res = values[i];
+		}
+		for (int i = lastBlock << BLOCK_SHIFT; i < to; i++) {
+			if (values[i] < res) res = values[i];
+		}
+		// complete blocks
+		int l = firstBlock + leaves;
+		int r = lastBlock + leaves;
+		while (l < r) {
+			if ((l & 1) == 1) {
+				if (values[min[l]] < res) res = values[min[l]];
+				l++;
+			}
+			if ((r & 1) == 1) {
+				r--;
+				if (values[min[r]] < res) res = values[min[r]];
+			}
+			l >>= 1;
+			r >>= 1;
+		}
+		return res;
+	}
+
+	/**
+	 * @return maximal value of the slots [from, to), -infinity if the range is empty
+	 */
+	double getMax(int from, int to) {
+		double res = Double.NEGATIVE_INFINITY;
+		int firstBlock = (from + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+		int lastBlock = to >> BLOCK_SHIFT;
+		if (firstBlock >= lastBlock) {
+			// less than one complete block
+			for (int i = from; i < to; i++) {
+				if (values[i] > res) res = values[i];
+			}
+			return res;
+		}
+		// incomplete blocks at the edges
+		for (int i = from; i < (firstBlock << BLOCK_SHIFT); i++) {
+			if (values[i] > res) res = values[i];
+		}
+		for (int i = lastBlock << BLOCK_SHIFT; i < to; i++) {
+			if (values[i] > res) res = values[i];
+		}
+		// complete blocks
+		int l = firstBlock + leaves;
+		int r = lastBlock + leaves;
+		while (l < r) {
+			if ((l & 1) == 1) {
+				if (values[max[l]] > res) res = values[max[l]];
+				l++;
+			}
+			if ((r & 1) == 1) {
+				r--;
+				if (values[max[r]] > res) res = values[max[r]];
+			}
+			l >>= 1;
+			r >>= 1;
+		}
+		return res;
+	}
+
+	/**
+	 * @return number of mipmap levels, level 0 has buckets of BLOCK_SIZE slots
+	 */
+	int getLevels() {
+		return levels;
+	}
+
+	/**
+	 * @param level mipmap level, the buckets have (BLOCK_SIZE &lt;&lt; level) slots
+	 * @param bucket bucket index, the bucket starts at slot (bucket * bucket size)
+	 * @return slot of the minimal value in the bucket
+	 */
+	int getMinSlot(int level, int bucket) {
+		return min[(leaves >> level) + bucket];
+	}
+
+	/**
+	 * @param level mipmap level, the buckets have (BLOCK_SIZE &lt;&lt; level) slots
+	 * @param bucket bucket index, the bucket starts at slot (bucket * bucket size)
+	 * @return slot of the maximal value in the bucket
+	 */
+	int getMaxSlot(int level, int bucket) {
+		return max[(leaves >> level) + bucket];
+	}
+
+	private void updateLeaf(int b) {
+		int start = b << BLOCK_SHIFT;
+		int end = Math.min(start + BLOCK_SIZE, values.length);
+		int lo = start;
+		int hi = start;
+		for (int i = start + 1; i < end; i++) {
+			double v = values[i];
+			if (v < values[lo]) lo = i;
+			if (v > values[hi]) hi = i;
+		}
+		min[leaves + b] = lo;
+		max[leaves + b] = hi;
+	}
+
+	private void updateNode(int i) {
+		int l = min[2 * i], r = min[2 * i + 1];
+		min[i] = (l < 0 || (r >= 0 && values[r] < values[l])) ? r : l;
+		l = max[2 * i];
+		r = max[2 * i + 1];
+		max[i] = (l < 0 || (r >= 0 && values[r] > values[l])) ? r : l;
+	}
+}
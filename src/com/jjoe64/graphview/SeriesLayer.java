@@ -0,0 +1,204 @@
+package com.jjoe64.graphview;
+
+import java.util.List;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+
+/**
+ * offscreen bitmap of the drawn series, for scrolling.
+ * If only the viewport moved (same scale and y bounds), the bitmap of the last frame is shifted
+ * by the pixel delta and only the newly exposed strip, and the part with appended data, is drawn again.
+ * The layer is drawn with its own minX (a whole number of pixels from the last frame);
+ * the remaining sub pixel offset is applied in {@link #draw(Canvas, double, double, float)}.
+ */
+final class SeriesLayer {
+	private Bitmap bitmap;
+	private Canvas canvas;
+	// second bitmap, the target of shifting
+	private Bitmap shiftBitmap;
+	private Canvas shiftCanvas;
+	private boolean valid;
+	// state the layer was drawn with
+	private int version;
+	private double minX;
+	private double diffX;
+	private double minY;
+	private double diffY;
+	private float graphwidth;
+	private float graphheight;
+	private GraphViewSeries[] series = new GraphViewSeries[0];
+	private int[] modCounts = new int[0];
+	private int[] resetCounts = new int[0];
+	private double[] firstX = new double[0];
+	private double[] lastX = new double[0];
+	// dirty part of the layer, in pixels
+	private int dirtyLeft;
+	private int dirtyRight;
+
+	/**
+	 * shifts the layer to the new viewport and clears the part that has to be drawn again.
+	 * Afterwards the canvas is clipped to [{@link #getDirtyLeft()}, {@link #getDirtyRight()}),
+	 * the series have to be drawn there with {@link #getMinX()} and then {@link #endDraw()} has to be called.
+	 * @param version changes that require a full redraw, see {@link GraphView#invalidateSeriesLayer()}
+	 * @param offsetX screen x of minX
+	 * @param margin pixels that are drawn again left of appended data, e.g. line thickness
+	 */
+	void beginDraw(int width, int height, int version, List<GraphViewSeries> graphSeries,
+			double minX, double diffX, double minY, double diffY, float graphwidth, float graphheight,
+			float offsetX, int margin) {
+		double scaleX = graphwidth / diffX;
+		boolean full = !valid || bitmap.getWidth() != width || bitmap.getHeight() != height
+				|| this.version != version || this.diffX != diffX || this.minY != minY || this.diffY != diffY
+				|| this.graphwidth != graphwidth || this.graphheight != graphheight
+				|| series.length != graphSeries.size();
+		int dx = 0;
+		if (!full) {
+			double shift = (minX - this.minX) * scaleX;
+			full = !(Math.abs(shift) < width);
+			dx = (int) Math.rint(shift);
+		}
+		if (!full) {
+			for (int i = 0; i < series.length; i++) {
+				GraphViewSeries s = graphSeries.get(i);
+				if (s != series[i] || s.getResetCount() != resetCounts[i]) {
+					full = true;
+					break;
+				}
+				// removed data (retention) that was visible
+				if (s.size() > 0 && s.getX(0) != firstX[i] && s.getX(0) > minX) {
+					full = true;
+					break;
+				}
+			}
+		}
+
+		if (bitmap == null || bitmap.getWidth() != width || bitmap.getHeight() != height) {
+			recycle();
+			bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+			canvas = new Canvas(bitmap);
+			shiftBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+			shiftCanvas = new Canvas(shiftBitmap);
+		}
+
+		if (full) {
+			bitmap.eraseColor(Color.TRANSPARENT);
+			this.minX = minX;
+			dirtyLeft = 0;
+			dirtyRight = width;
+		} else {
+			if (dx != 0) {
+				shiftBitmap.eraseColor(Color.TRANSPARENT);
+				shiftCanvas.drawBitmap(bitmap, -dx, 0, null);
+				Bitmap b = bitmap;
+				bitmap = shiftBitmap;
+				shiftBitmap = b;
+				Canvas c = canvas;
+				canvas = shiftCanvas;
+				shiftCanvas = c;
+				this.minX += dx / scaleX;
+			}
+			// newly exposed strip
+			if (dx > 0) {
+				dirtyLeft = width - dx;
+				dirtyRight = width;
+			} else if (dx < 0) {
+				dirtyLeft = 0;
+				dirtyRight = -dx;
+			} else {
+				dirtyLeft = width;
+				dirtyRight = width;
+			}
+			// appended data
+			for (int i = 0; i < series.length; i++) {
+				GraphViewSeries s = series[i];
+				if (s.getModCount() != modCounts[i]) {
+					int left = Double.isNaN(lastX[i]) ? 0
+							: (int) Math.floor((lastX[i] - this.minX) * scaleX + offsetX) - margin;
+					dirtyLeft = Math.max(Math.min(dirtyLeft, left), 0);
+					dirtyRight = width;
+				}
+			}
+		}
+
+		// save the state
+		if (series.length != graphSeries.size()) {
+			int n = graphSeries.size();
+			series = new GraphViewSeries[n];
+			modCounts = new int[n];
+			resetCounts = new int[n];
+			firstX = new double[n];
+			lastX = new double[n];
+		}
+		for (int i = 0; i < series.length; i++) {
+			GraphViewSeries s = graphSeries.get(i);
+			series[i] = s;
+			modCounts[i] = s.getModCount();
+			resetCounts[i] = s.getResetCount();
+			int size = s.size();
+			firstX[i] = size > 0 ? s.getX(0) : Double.NaN;
+			lastX[i] = size > 0 ? s.getX(size - 1) : Double.NaN;
+		}
+		this.version = version;
+		this.diffX = diffX;
+		this.minY = minY;
+		this.diffY = diffY;
+		this.graphwidth = graphwidth;
+		this.graphheight = graphheight;
+		valid = true;
+
+		canvas.save();
+		canvas.clipRect(dirtyLeft, 0, dirtyRight, height);
+		if (!full) {
+			canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+		}
+	}
+
+	void endDraw() {
+		canvas.restore();
+	}
+
+	Canvas getCanvas() {
+		return canvas;
+	}
+
+	/**
+	 * @return minX the layer is drawn with
+	 */
+	double getMinX() {
+		return minX;
+	}
+
+	int getDirtyLeft() {
+		return dirtyLeft;
+	}
+
+	int getDirtyRight() {
+		return dirtyRight;
+	}
+
+	/**
+	 * draws the layer at the position of the viewport minX
+	 */
+	void draw(Canvas canvas, double minX, double diffX, float graphwidth) {
+		float left = (float) ((this.minX - minX) * graphwidth / diffX);
+		canvas.drawBitmap(bitmap, left, 0, null);
+	}
+
+	/**
+	 * frees the bitmaps, the layer will be drawn again
+	 */
+	void recycle() {
+		if (bitmap != null) {
+			bitmap.recycle();
+			shiftBitmap.recycle();
+			bitmap = null;
+			canvas = null;
+			shiftBitmap = null;
+			shiftCanvas = null;
+		}
+		valid = false;
+	}
+}
@@ -0,0 +1,77 @@
+package com.jjoe64.graphview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+
+/**
+ * offscreen bitmap of the parts of a view that only change with size, style, labels or bounds
+ * (grid, labels, title). The layer remembers the state it was drawn with and
+ * is only drawn again if that state changed.
+ */
+final class StaticLayer {
+	private Bitmap bitmap;
+	private Canvas canvas;
+	private boolean valid;
+	// state the layer was drawn with
+	private GraphViewStyle style;
+	private int styleVersion;
+	private int version;
+	private double minX;
+	private double maxX;
+	private double minY;
+	private double maxY;
+	private float textSize;
+
+	/**
+	 * checks if the layer has to be drawn again, and saves the state.
+	 * @param version changes of labels, title, ..., see {@link GraphView#invalidateStaticLayer()}
+	 * @return true, if the layer was cleared and has to be drawn to {@link #getCanvas()}
+	 */
+	boolean update(int width, int height, GraphViewStyle style, int version,
+			double minX, double maxX, double minY, double maxY, float textSize) {
+		if (valid && bitmap.getWidth() == width && bitmap.getHeight() == height
+				&& this.style == style && styleVersion == style.getVersion() && this.version == version
+				&& this.minX == minX && this.maxX == maxX && this.minY == minY && this.maxY == maxY
+				&& this.textSize == textSize) {
+			return false;
+		}
+		if (bitmap == null || bitmap.getWidth() != width || bitmap.getHeight() != height) {
+			recycle();
+			bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+			canvas = new Canvas(bitmap);
+		} else {
+			bitmap.eraseColor(Color.TRANSPARENT);
+		}
+		this.style = style;
+		styleVersion = style.getVersion();
+		this.version = version;
+		this.minX = minX;
+		this.maxX = maxX;
+		this.minY = minY;
+		this.maxY = maxY;
+		this.textSize = textSize;
+		valid = true;
+		return true;
+	}
+
+	Canvas getCanvas() {
+		return canvas;
+	}
+
+	void draw(Canvas canvas) {
+		canvas.drawBitmap(bitmap, 0, 0, null);
+	}
+
+	/**
+	 * frees the bitmap, the layer will be drawn again
+	 */
+	void recycle() {
+		if (bitmap != null) {
+			bitmap.recycle();
+			bitmap = null;
+			canvas = null;
+		}
+		valid = false;
+	}
+}
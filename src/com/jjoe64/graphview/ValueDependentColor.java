@@ -3,5 +3,9 @@ package com.jjoe64.graphview;
 import com.jjoe64.graphview.GraphView.GraphViewData;
 
 public interface ValueDependentColor {
+	/**
+	 * @param data the data of a bar, created for this call.
+	 * Extend {@link XYValueDependentColor} to get the values without an object per bar.
+	 */
 	public int get(GraphViewData data);
 }
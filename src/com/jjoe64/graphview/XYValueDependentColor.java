@@ -0,0 +1,21 @@
+package com.jjoe64.graphview;
+
+import com.jjoe64.graphview.GraphView.GraphViewData;
+
+/**
+ * value dependent color that gets the values of a bar directly,
+ * the bars are drawn without creating a GraphViewData per bar.
+ */
+public abstract class XYValueDependentColor implements ValueDependentColor {
+	/**
+	 * @param valueX x value of the bar
+	 * @param valueY y value of the bar
+	 * @return color of the bar
+	 */
+	public abstract int get(double valueX, double valueY);
+
+	@Override
+	public int get(GraphViewData data) {
+		return get(data.valueX, data.valueY);
+	}
+}
@@ -0,0 +1,66 @@
+package com.jjoe64.graphview.compatible;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+/**
+ * runs a callback at the next display frame: with Choreographer (API 16), otherwise posted to the main thread.
+ * Has to be created on the main thread.
+ */
+public class FrameScheduler {
+	private final Runnable callback;
+	private final Handler handler;
+	private Object realFrameScheduler;
+	private Method method_postFrame;
+
+	/**
+	 * @param callback called on the main thread
+	 */
+	public FrameScheduler(Runnable callback) {
+		this.callback = callback;
+		handler = new Handler(Looper.getMainLooper());
+		if (Build.VERSION.SDK_INT >= 16) {
+			try {
+				// load class and methods
+				Class<?> classRealFrameScheduler = Class.forName("com.jjoe64.graphview.compatible.RealFrameScheduler");
+				method_postFrame = classRealFrameScheduler.getMethod("postFrame");
+
+				// create real FrameScheduler
+				Constructor<?> constructor = classRealFrameScheduler.getConstructor(Runnable.class);
+				realFrameScheduler = constructor.newInstance(callback);
+			} catch (Exception e) {
+				// not available
+				Log.w("com.jjoe64.graphview", "*** WARNING *** No Choreographer available, frames are posted. Exception:");
+				e.printStackTrace();
+				method_postFrame = null;
+			}
+		}
+	}
+
+	/**
+	 * the callback will be called once at the next frame. thread safe.
+	 */
+	public void postFrame() {
+		if (method_postFrame != null) {
+			try {
+				method_postFrame.invoke(realFrameScheduler);
+				return;
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+		handler.post(callback);
+	}
+
+	/**
+	 * the callback will be called soon on the main thread, without waiting for the next frame. thread safe.
+	 */
+	public void post() {
+		handler.post(callback);
+	}
+}
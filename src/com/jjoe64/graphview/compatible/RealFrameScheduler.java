@@ -0,0 +1,26 @@
+package com.jjoe64.graphview.compatible;
+
+import android.view.Choreographer;
+
+/**
+ * FrameScheduler with Choreographer, API 16
+ */
+public class RealFrameScheduler implements Choreographer.FrameCallback {
+	private final Choreographer choreographer;
+	private final Runnable callback;
+
+	public RealFrameScheduler(Runnable callback) {
+		this.callback = callback;
+		// the Choreographer of the main thread
+		choreographer = Choreographer.getInstance();
+	}
+
+	public void postFrame() {
+		choreographer.postFrameCallback(this);
+	}
+
+	@Override
+	public void doFrame(long frameTimeNanos) {
+		callback.run();
+	}
+}
@@ -0,0 +1,128 @@
+package com.jjoe64.graphview;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.view.View;
+
+import com.jjoe64.graphview.GraphViewSeries.GraphViewSeriesStyle;
+import com.jjoe64.graphview.GraphViewSeries.GraphViewSeriesStyle.Downsampling;
+
+/**
+ * allocation budget of the steady-state draw path, on the JVM.
+ * The views draw into a {@link RecordingCanvas} while the viewport pans:
+ * reading the series, downsampling, the layers and the label formatting
+ * must not allocate once the reused buffers have grown.
+ */
+public class DrawPathAllocationTest {
+	private static final int POINTS = 20000;
+	private static final int WIDTH = 480;
+	private static final int HEIGHT = 320;
+	private static final int LABELS_WIDTH = 40;
+	private static final int WARMUP_FRAMES = 3000;
+	private static final int FRAMES = 1000;
+	// slack for the measurement itself, far below one object per frame
+	private static final long BUDGET_BYTES = 4096;
+
+	private com.sun.management.ThreadMXBean threadBean;
+	private final RecordingCanvas canvas = new RecordingCanvas();
+
+	@Before
+	public void setUp() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		threadBean = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	@Test
+	public void lineGraphMultiResolution() {
+		GraphViewSeries series = createSeries(new GraphViewSeriesStyle());
+		series.setMultiResolution(true);
+		assertFramesDoNotAllocate(new LineGraphView(new Context(), "line"), series);
+	}
+
+	@Test
+	public void lineGraphM4() {
+		GraphViewSeriesStyle style = new GraphViewSeriesStyle(Color.BLUE, 3);
+		style.setDownsampling(Downsampling.M4);
+		assertFramesDoNotAllocate(new LineGraphView(new Context(), "m4"), createSeries(style));
+	}
+
+	@Test
+	public void lineGraphLttbWithBackground() {
+		GraphViewSeriesStyle style = new GraphViewSeriesStyle();
+		style.setDownsampling(Downsampling.LTTB);
+		LineGraphView graph = new LineGraphView(new Context(), "lttb");
+		graph.setDrawBackground(true);
+		assertFramesDoNotAllocate(graph, createSeries(style));
+	}
+
+	@Test
+	public void barGraphWithValueDependentColor() {
+		GraphViewSeriesStyle style = new GraphViewSeriesStyle();
+		style.setValueDependentColor(new XYValueDependentColor() {
+			@Override
+			public int get(double valueX, double valueY) {
+				return valueY > 0 ? Color.GREEN : Color.RED;
+			}
+		});
+		BarGraphView graph = new BarGraphView(new Context(), "bars");
+		graph.setAggregation(BarGraphView.Aggregation.MAX);
+		assertFramesDoNotAllocate(graph, createSeries(style));
+	}
+
+	private GraphViewSeries createSeries(GraphViewSeriesStyle style) {
+		double[] valuesX = new double[POINTS];
+		double[] valuesY = new double[POINTS];
+		for (int i = 0; i < POINTS; i++) {
+			valuesX[i] = i;
+			valuesY[i] = Math.sin(i * 0.01) * 100 + (i % 7);
+		}
+		return new GraphViewSeries("series", style, valuesX, valuesY);
+	}
+
+	private void assertFramesDoNotAllocate(GraphView graph, GraphViewSeries series) {
+		graph.addSeries(series);
+		graph.setScrollable(true);
+		graph.layout(0, 0, WIDTH, HEIGHT);
+		// vertical labels and content, in the order they are added by GraphView
+		View verLabels = graph.getChildAt(0);
+		View content = graph.getChildAt(1);
+		verLabels.layout(0, 0, LABELS_WIDTH, HEIGHT);
+		content.layout(LABELS_WIDTH, 0, WIDTH, HEIGHT);
+
+		for (int frame = 0; frame < WARMUP_FRAMES; frame++) {
+			drawFrame(graph, verLabels, content, frame);
+		}
+		canvas.reset();
+		long threadId = Thread.currentThread().getId();
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		for (int frame = 0; frame < FRAMES; frame++) {
+			drawFrame(graph, verLabels, content, frame);
+		}
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+		assertTrue("nothing drawn", canvas.lines + canvas.paths + canvas.rects > 0);
+		assertTrue("no labels drawn", canvas.texts > 0);
+		assertTrue("allocated " + allocated + " bytes in " + FRAMES + " frames", allocated <= BUDGET_BYTES);
+	}
+
+	/**
+	 * one frame of a viewport that pans by one x value per frame
+	 */
+	private void drawFrame(GraphView graph, View verLabels, View content, int frame) {
+		graph.setViewPort(frame % (POINTS / 2), POINTS / 2);
+		verLabels.draw(canvas);
+		content.draw(canvas);
+	}
+}
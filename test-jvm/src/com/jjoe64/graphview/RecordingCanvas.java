@@ -0,0 +1,71 @@
+package com.jjoe64.graphview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+
+/**
+ * counts the draw calls, without allocating
+ */
+class RecordingCanvas extends Canvas {
+	int lines;
+	int paths;
+	int rects;
+	int texts;
+	int bitmaps;
+
+	void reset() {
+		lines = 0;
+		paths = 0;
+		rects = 0;
+		texts = 0;
+		bitmaps = 0;
+	}
+
+	@Override
+	public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+		bitmaps++;
+	}
+
+	@Override
+	public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+		lines++;
+	}
+
+	@Override
+	public void drawLines(float[] pts, int offset, int count, Paint paint) {
+		lines += count / 4;
+	}
+
+	@Override
+	public void drawPath(Path path, Paint paint) {
+		paths++;
+	}
+
+	@Override
+	public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+		rects++;
+	}
+
+	@Override
+	public void drawRect(RectF rect, Paint paint) {
+		rects++;
+	}
+
+	@Override
+	public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+		rects++;
+	}
+
+	@Override
+	public void drawText(String text, float x, float y, Paint paint) {
+		texts++;
+	}
+
+	@Override
+	public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+		texts++;
+	}
+}
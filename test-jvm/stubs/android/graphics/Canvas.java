@@ -0,0 +1,60 @@
+package android.graphics;
+
+/**
+ * draws nothing, tests override the methods to record the calls
+ */
+public class Canvas {
+	public Canvas() {
+	}
+
+	public Canvas(Bitmap bitmap) {
+	}
+
+	public int save() {
+		return 1;
+	}
+
+	public void restore() {
+	}
+
+	public boolean clipRect(float left, float top, float right, float bottom) {
+		return true;
+	}
+
+	public boolean clipRect(int left, int top, int right, int bottom) {
+		return true;
+	}
+
+	public void drawColor(int color) {
+	}
+
+	public void drawColor(int color, PorterDuff.Mode mode) {
+	}
+
+	public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+	}
+
+	public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+	}
+
+	public void drawLines(float[] pts, int offset, int count, Paint paint) {
+	}
+
+	public void drawPath(Path path, Paint paint) {
+	}
+
+	public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+	}
+
+	public void drawRect(RectF rect, Paint paint) {
+	}
+
+	public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+	}
+
+	public void drawText(String text, float x, float y, Paint paint) {
+	}
+
+	public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+	}
+}
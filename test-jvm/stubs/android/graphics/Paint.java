@@ -0,0 +1,92 @@
+package android.graphics;
+
+public class Paint {
+	public enum Align {
+		LEFT, CENTER, RIGHT
+	}
+
+	public enum Cap {
+		BUTT, ROUND, SQUARE
+	}
+
+	public enum Style {
+		FILL, STROKE, FILL_AND_STROKE
+	}
+
+	private boolean antiAlias;
+	private int color;
+	private float strokeWidth;
+	private float textSize = 12;
+	private float textScaleX = 1;
+	private Typeface typeface;
+
+	public boolean isAntiAlias() {
+		return antiAlias;
+	}
+
+	public void setAntiAlias(boolean antiAlias) {
+		this.antiAlias = antiAlias;
+	}
+
+	public int getColor() {
+		return color;
+	}
+
+	public void setColor(int color) {
+		this.color = color;
+	}
+
+	public void setARGB(int alpha, int red, int green, int blue) {
+		color = Color.argb(alpha, red, green, blue);
+	}
+
+	public float getStrokeWidth() {
+		return strokeWidth;
+	}
+
+	public void setStrokeWidth(float strokeWidth) {
+		this.strokeWidth = strokeWidth;
+	}
+
+	public void setStrokeCap(Cap cap) {
+	}
+
+	public void setStyle(Style style) {
+	}
+
+	public void setTextAlign(Align align) {
+	}
+
+	public float getTextSize() {
+		return textSize;
+	}
+
+	public void setTextSize(float textSize) {
+		this.textSize = textSize;
+	}
+
+	public float getTextScaleX() {
+		return textScaleX;
+	}
+
+	public void setTextScaleX(float textScaleX) {
+		this.textScaleX = textScaleX;
+	}
+
+	public Typeface getTypeface() {
+		return typeface;
+	}
+
+	public Typeface setTypeface(Typeface typeface) {
+		this.typeface = typeface;
+		return typeface;
+	}
+
+	public float measureText(String text) {
+		return text.length() * textSize / 2;
+	}
+
+	public float measureText(char[] text, int index, int count) {
+		return count * textSize / 2;
+	}
+}
@@ -0,0 +1,22 @@
+package android.graphics;
+
+public class Path {
+	public enum Direction {
+		CW, CCW
+	}
+
+	public void rewind() {
+	}
+
+	public void moveTo(float x, float y) {
+	}
+
+	public void lineTo(float x, float y) {
+	}
+
+	public void close() {
+	}
+
+	public void addRect(float left, float top, float right, float bottom, Direction dir) {
+	}
+}
@@ -0,0 +1,13 @@
+package android.os;
+
+/**
+ * never runs the posted messages, there is no main loop in the tests
+ */
+public class Handler {
+	public Handler(Looper looper) {
+	}
+
+	public boolean post(Runnable r) {
+		return true;
+	}
+}
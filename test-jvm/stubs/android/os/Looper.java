@@ -0,0 +1,13 @@
+package android.os;
+
+public class Looper {
+	private static final Looper MAIN = new Looper();
+
+	public static Looper getMainLooper() {
+		return MAIN;
+	}
+
+	public static Looper myLooper() {
+		return MAIN;
+	}
+}
@@ -0,0 +1,11 @@
+package android.text;
+
+public class TextUtils {
+	public enum TruncateAt {
+		START, MIDDLE, END
+	}
+
+	public static CharSequence ellipsize(CharSequence text, TextPaint paint, float avail, TruncateAt where) {
+		return text;
+	}
+}
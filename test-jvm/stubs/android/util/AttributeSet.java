@@ -0,0 +1,7 @@
+package android.util;
+
+public interface AttributeSet {
+	String getAttributeValue(String namespace, String name);
+
+	int getAttributeIntValue(String namespace, String name, int defaultValue);
+}
@@ -0,0 +1,7 @@
+package android.util;
+
+public class Log {
+	public static int w(String tag, String msg) {
+		return 0;
+	}
+}
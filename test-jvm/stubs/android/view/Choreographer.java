@@ -0,0 +1,19 @@
+package android.view;
+
+/**
+ * never calls back, there is no main loop in the tests
+ */
+public class Choreographer {
+	private static final Choreographer INSTANCE = new Choreographer();
+
+	public interface FrameCallback {
+		void doFrame(long frameTimeNanos);
+	}
+
+	public static Choreographer getInstance() {
+		return INSTANCE;
+	}
+
+	public void postFrameCallback(FrameCallback callback) {
+	}
+}
@@ -0,0 +1,30 @@
+package android.view;
+
+import android.content.Context;
+
+public class ScaleGestureDetector {
+	public interface OnScaleGestureListener {
+		boolean onScale(ScaleGestureDetector detector);
+	}
+
+	public static class SimpleOnScaleGestureListener implements OnScaleGestureListener {
+		public boolean onScale(ScaleGestureDetector detector) {
+			return false;
+		}
+	}
+
+	public ScaleGestureDetector(Context context, OnScaleGestureListener listener) {
+	}
+
+	public float getScaleFactor() {
+		return 1;
+	}
+
+	public boolean isInProgress() {
+		return false;
+	}
+
+	public boolean onTouchEvent(MotionEvent event) {
+		return false;
+	}
+}
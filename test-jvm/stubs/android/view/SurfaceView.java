@@ -0,0 +1,13 @@
+package android.view;
+
+import android.content.Context;
+
+public class SurfaceView extends View {
+	public SurfaceView(Context context) {
+		super(context);
+	}
+
+	public SurfaceHolder getHolder() {
+		return null;
+	}
+}
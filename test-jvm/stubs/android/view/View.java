@@ -0,0 +1,63 @@
+package android.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+
+/**
+ * keeps the size given by layout, draw calls onDraw
+ */
+public class View {
+	private final Context context;
+	private ViewGroup.LayoutParams layoutParams;
+	private int width;
+	private int height;
+
+	public View(Context context) {
+		this.context = context;
+	}
+
+	public Context getContext() {
+		return context;
+	}
+
+	public ViewGroup.LayoutParams getLayoutParams() {
+		return layoutParams;
+	}
+
+	public void setLayoutParams(ViewGroup.LayoutParams params) {
+		layoutParams = params;
+	}
+
+	public void layout(int l, int t, int r, int b) {
+		width = r - l;
+		height = b - t;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public void draw(Canvas canvas) {
+		onDraw(canvas);
+	}
+
+	protected void onDraw(Canvas canvas) {
+	}
+
+	public boolean onTouchEvent(MotionEvent event) {
+		return false;
+	}
+
+	public void invalidate() {
+	}
+
+	public void invalidate(int l, int t, int r, int b) {
+	}
+
+	public void postInvalidate() {
+	}
+}
@@ -0,0 +1,49 @@
+package android.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.content.Context;
+
+public class ViewGroup extends View {
+	public static class LayoutParams {
+		public static final int FILL_PARENT = -1;
+		public static final int MATCH_PARENT = -1;
+		public static final int WRAP_CONTENT = -2;
+
+		public int width;
+		public int height;
+
+		public LayoutParams(int width, int height) {
+			this.width = width;
+			this.height = height;
+		}
+	}
+
+	private final List<View> children = new ArrayList<View>();
+
+	public ViewGroup(Context context) {
+		super(context);
+	}
+
+	public void addView(View child) {
+		children.add(child);
+	}
+
+	public void addView(View child, LayoutParams params) {
+		child.setLayoutParams(params);
+		children.add(child);
+	}
+
+	public void removeView(View child) {
+		children.remove(child);
+	}
+
+	public int getChildCount() {
+		return children.size();
+	}
+
+	public View getChildAt(int index) {
+		return children.get(index);
+	}
+}
@@ -0,0 +1,23 @@
+package android.widget;
+
+import android.content.Context;
+import android.view.ViewGroup;
+
+public class LinearLayout extends ViewGroup {
+	public static class LayoutParams extends ViewGroup.LayoutParams {
+		public float weight;
+
+		public LayoutParams(int width, int height) {
+			super(width, height);
+		}
+
+		public LayoutParams(int width, int height, float weight) {
+			super(width, height);
+			this.weight = weight;
+		}
+	}
+
+	public LinearLayout(Context context) {
+		super(context);
+	}
+}